@@ -0,0 +1,121 @@
+import java.util.Arrays;
+
+/**
+ задача о назначениях (венгерский алгоритм с потенциалами, O(n^2 m)):
+ каждой строке (этажу) - свой столбец (лифт), сумма стоимостей минимальна
+ строк не больше столбцов; при большем числе строк матрица решается
+ транспонированной, лишние строки остаются без столбца
+
+ для 50x50 это порядка 10^5 операций (десятки микросекунд); бюджет времени
+ проверяется после каждой строки, превысили - решения нет (null)
+ */
+public final class AssignmentSolver {
+
+    // стоимость "нельзя": такие пары в ответ не попадают
+    // (с запасом над int-стоимостями, но так, чтобы потенциалы не переполнялись)
+    public static final long INF = 1L << 40;
+
+    private AssignmentSolver() {
+    }
+
+    /*
+     столбец для каждой строки (-1 - без столбца или только недопустимые пары)
+     @param cost // cost[строка][столбец], INF - пара недопустима
+     @param deadline // System.nanoTime(), после которого решение бросаем
+     */
+    public static int[] solve(long[][] cost, long deadline) {
+        int rows = cost.length;
+        int cols = rows == 0 ? 0 : cost[0].length;
+        int[] res = new int[rows];
+        if (rows == 0 || cols == 0) {
+            Arrays.fill(res, -1);
+            return res;
+        }
+        if (rows <= cols) {
+            int[] colOf = hungarian(cost, rows, cols, false, deadline);
+            if (colOf == null) {
+                return null;
+            }
+            for (int i = 0; i < rows; i++) {
+                res[i] = cost[i][colOf[i]] >= INF ? -1 : colOf[i];
+            }
+        } else {
+            // столбцов меньше: назначаем строки столбцам
+            int[] rowOf = hungarian(cost, cols, rows, true, deadline);
+            if (rowOf == null) {
+                return null;
+            }
+            Arrays.fill(res, -1);
+            for (int j = 0; j < cols; j++) {
+                if (cost[rowOf[j]][j] < INF) {
+                    res[rowOf[j]] = j;
+                }
+            }
+        }
+        return res;
+    }
+
+    /*
+     n строк, m столбцов (n <= m), a(i, j) - cost[i][j] или cost[j][i] при transposed
+     возвращает столбец каждой строки
+     */
+    private static int[] hungarian(long[][] cost, int n, int m, boolean transposed, long deadline) {
+        long[] u = new long[n + 1];
+        long[] v = new long[m + 1];
+        int[] p = new int[m + 1];   // строка (с 1), которой отдан столбец j
+        int[] way = new int[m + 1];
+        long[] minv = new long[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for (int i = 1; i <= n; i++) {
+            if (System.nanoTime() > deadline) {
+                return null;
+            }
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Long.MAX_VALUE);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = p[j0];
+                long delta = Long.MAX_VALUE;
+                int j1 = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    long a = transposed ? cost[j - 1][i0 - 1] : cost[i0 - 1][j - 1];
+                    long cur = a - u[i0] - v[j];
+                    if (cur < minv[j]) {
+                        minv[j] = cur;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+            do {
+                int j1 = way[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+        int[] colOf = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                colOf[p[j] - 1] = j - 1;
+            }
+        }
+        return colOf;
+    }
+}
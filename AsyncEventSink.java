@@ -0,0 +1,107 @@
+import java.io.PrintStream;
+import java.util.function.LongSupplier;
+
+/**
+ асинхронный журнал: события кладутся в кольцевой буфер (без блокировок и строк),
+ отдельный поток пачками форматирует их и пишет в поток вывода
+ буфер и поток писателя - EventRing: если буфер полон, событие отбрасывается
+ (и считается), вызывающий поток не ждёт; close дописывает все принятые события
+ */
+public class AsyncEventSink implements EventSink {
+
+    private static final int BATCH = 256; // событий за один сброс
+
+    private final EventRing ring;
+    private final long[] times;
+    private final SimEvent[] types;
+    private final int[] elevs;
+    private final int[] floors;
+    private final int[] as;
+    private final int[] bs;
+
+    private final SimEvent.Level minLevel;
+    private final LongSupplier clock;
+    private final PrintStream out;
+
+    /**
+    @param out // куда писать
+    @param minLevel // события ниже этого уровня не записываются
+    @param clock // источник времени для отметок (виртуальное время движка)
+    @param capacity // размер буфера (округляется вверх до степени двойки)
+     */
+    public AsyncEventSink(PrintStream out, SimEvent.Level minLevel, LongSupplier clock, int capacity) {
+        this.ring = new EventRing(capacity, BATCH, "event-writer", new Writer());
+        int size = ring.size();
+        this.times = new long[size];
+        this.types = new SimEvent[size];
+        this.elevs = new int[size];
+        this.floors = new int[size];
+        this.as = new int[size];
+        this.bs = new int[size];
+        this.out = out;
+        this.minLevel = minLevel;
+        this.clock = clock;
+        ring.start();
+    }
+
+    @Override
+    public boolean isEnabled(SimEvent.Level level) {
+        return level.compareTo(minLevel) >= 0 && minLevel != SimEvent.Level.OFF;
+    }
+
+    @Override
+    public void emit(SimEvent type, int elev, int floor, int a, int b) {
+        if (!isEnabled(type.level)) {
+            return;
+        }
+        long seq = ring.claim();
+        if (seq < 0) {
+            return;
+        }
+        int i = ring.slot(seq);
+        times[i] = clock.getAsLong();
+        types[i] = type;
+        elevs[i] = elev;
+        floors[i] = floor;
+        as[i] = a;
+        bs[i] = b;
+        ring.publish(seq);
+    }
+
+    public long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+
+    @Override
+    public void close() {
+        ring.close();
+    }
+
+    // поток писателя: форматирует пачку в строку и сбрасывает её в out
+    private final class Writer implements EventRing.Drain {
+
+        private final StringBuilder sb = new StringBuilder(BATCH * 64);
+
+        @Override
+        public void write(int i) {
+            types[i].format(sb, times[i], elevs[i], floors[i], as[i], bs[i]);
+            types[i] = null;
+        }
+
+        @Override
+        public void batchDone() {
+            out.print(sb);
+            out.flush();
+            sb.setLength(0);
+        }
+
+        @Override
+        public void finish() {
+            long lost = ring.getDroppedCount();
+            if (lost > 0) {
+                out.println("[ЖУРНАЛ] отброшено событий: " + lost);
+            }
+            out.flush();
+        }
+    }
+}
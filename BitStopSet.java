@@ -0,0 +1,127 @@
+import java.util.Arrays;
+
+/**
+ набор остановок на битовой маске: бит floor в слове floor / 64
+ поиск ближайшей остановки - просмотр слов (O(этажей / 64)), без объектов
+ */
+public class BitStopSet implements StopSet {
+
+    private long[] words;
+    private int size = 0;
+
+    /**
+    @param floors // сколько этажей ожидается (при необходимости маска растёт)
+     */
+    public BitStopSet(int floors) {
+        words = new long[(Math.max(floors, 1) >> 6) + 1];
+    }
+
+    @Override
+    public void add(int floor) {
+        int w = floor >> 6;
+        if (w >= words.length) {
+            words = Arrays.copyOf(words, Math.max(w + 1, words.length * 2));
+        }
+        long bit = 1L << floor;
+        if ((words[w] & bit) == 0) {
+            words[w] |= bit;
+            size++;
+        }
+    }
+
+    @Override
+    public void remove(int floor) {
+        int w = floor >> 6;
+        if (w < words.length) {
+            long bit = 1L << floor;
+            if ((words[w] & bit) != 0) {
+                words[w] &= ~bit;
+                size--;
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(int floor) {
+        int w = floor >> 6;
+        return w < words.length && (words[w] & (1L << floor)) != 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(words, 0L);
+            size = 0;
+        }
+    }
+
+    @Override
+    public int next(int from) {
+        if (size == 0) {
+            return -1;
+        }
+        if (from < 0) {
+            from = 0;
+        }
+        int w = from >> 6;
+        if (w >= words.length) {
+            return -1;
+        }
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words.length) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    @Override
+    public int prev(int from) {
+        if (size == 0 || from < 0) {
+            return -1;
+        }
+        int w = from >> 6;
+        long word;
+        if (w >= words.length) {
+            w = words.length - 1;
+            word = words[w];
+        } else {
+            word = words[w] & (-1L >>> (63 - (from & 63)));
+        }
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (w-- == 0) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int f = next(0); f >= 0; f = next(f + 1)) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(f);
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,219 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ одно здание: этажи, реестр вызовов, лифты и флаг работы
+ всё состояние симуляции живёт здесь, а не в статических полях,
+ поэтому в одной JVM может работать сколько угодно зданий сразу
+ */
+public class Building {
+
+    // главное лобби: сюда едут все пассажиры
+    public static final int LOBBY = 1;
+
+    private final int floorCount;
+    private final HallCallRegistry hallCalls;
+    private final Elevator[] elevators;
+    // этажи, где могут появиться вызовы: обслуживаются хотя бы одним лифтом, кроме лобби
+    private final int[] callFloors;
+
+    // идёт ли симуляция (снимается кнопкой "стоп" из другого потока)
+    private volatile boolean running = false;
+
+    // последний опубликованный снимок для отрисовки (см. BuildingSnapshot)
+    private volatile BuildingSnapshot snapshot;
+
+    /**
+    @param floorCount // количество этажей (этажи нумеруются с 1)
+    @param capacities // грузоподъёмность каждого лифта, номера лифтов с 1
+     */
+    public Building(int floorCount, int[] capacities) {
+        this.floorCount = floorCount;
+        this.hallCalls = new HallCallRegistry(floorCount);
+        this.elevators = new Elevator[capacities.length];
+        for (int i = 0; i < capacities.length; i++) {
+            elevators[i] = new Elevator(i + 1, capacities[i], this);
+        }
+        this.callFloors = collectCallFloors();
+        this.snapshot = BuildingSnapshot.capture(this, 0);
+    }
+
+    /**
+    @param config // этажи и банки лифтов с их зонами
+     */
+    public Building(BuildingConfig config) {
+        this.floorCount = config.floors;
+        this.hallCalls = new HallCallRegistry(floorCount);
+        this.elevators = new Elevator[config.carCount()];
+        int id = 0;
+        for (BuildingConfig.Bank b : config.banks) {
+            StopSet transfers = transferFloors(config, b);
+            for (int cap : b.carCapacities()) {
+                Elevator e = new Elevator(id + 1, cap, this);
+                e.configure(b.floors, b.homeFloor());
+                e.setTransferFloors(transfers);
+                elevators[id++] = e;
+            }
+        }
+        this.callFloors = collectCallFloors();
+        checkLobbyReachable();
+        this.snapshot = BuildingSnapshot.capture(this, 0);
+    }
+
+    /*
+     здание по описанию лифтов (восстановление из контрольной точки, см. Checkpoint):
+     served[i] == null - лифт ходит на все этажи; одинаковые наборы у лифтов одного банка
+     должны быть одним объектом (по нему банк узнаёт DemandParking)
+     */
+    Building(int floorCount, int[] capacities, StopSet[] served, int[] homes, StopSet[] transfers) {
+        this.floorCount = floorCount;
+        this.hallCalls = new HallCallRegistry(floorCount);
+        this.elevators = new Elevator[capacities.length];
+        for (int i = 0; i < capacities.length; i++) {
+            Elevator e = new Elevator(i + 1, capacities[i], this);
+            if (served[i] != null) {
+                e.configure(served[i], homes[i]);
+            }
+            e.setTransferFloors(transfers[i]);
+            elevators[i] = e;
+        }
+        this.callFloors = collectCallFloors();
+        this.snapshot = BuildingSnapshot.capture(this, 0);
+    }
+
+    // этажи банка bank, где останавливаются и лифты других банков (лобби, скай-лобби)
+    private static StopSet transferFloors(BuildingConfig config, BuildingConfig.Bank bank) {
+        StopSet res = new BitStopSet(config.floors + 1);
+        for (int f = bank.floors.min(); f > 0; f = bank.floors.next(f + 1)) {
+            for (BuildingConfig.Bank other : config.banks) {
+                if (other != bank && other.floors.contains(f)) {
+                    res.add(f);
+                    break;
+                }
+            }
+        }
+        return res;
+    }
+
+    /*
+     с каждого обслуживаемого этажа можно уехать в лобби: лифт берёт вниз только тех,
+     кого довезёт ниже (legFor), дальше - с этажа выхода; этажи проверяются снизу вверх,
+     этаж выхода всегда ниже, поэтому для него ответ уже известен
+     (BuildingConfig проверяет связность банков, здесь - маршруты, как их строят лифты:
+     например, банк без пересадки ниже своего домашнего этажа оставит людей на нём)
+     */
+    private void checkLobbyReachable() {
+        boolean[] reaches = new boolean[floorCount + 1];
+        reaches[LOBBY] = true;
+        for (int f : callFloors) {
+            for (Elevator e : elevators) {
+                if (e.serves(f) && e.servesBelow(f)) {
+                    int leg = e.legFor(LOBBY, f);
+                    if (leg > 0 && leg < f && reaches[leg]) {
+                        reaches[f] = true;
+                        break;
+                    }
+                }
+            }
+            if (!reaches[f]) {
+                throw new IllegalArgumentException("с этажа " + f + " не доехать до лобби: ни один лифт,"
+                        + " который там останавливается, не везёт вниз к пересадке, откуда есть путь дальше");
+            }
+        }
+    }
+
+    private int[] collectCallFloors() {
+        int n = 0;
+        int[] res = new int[floorCount];
+        for (int f = 1; f <= floorCount; f++) {
+            if (f == LOBBY) {
+                continue;
+            }
+            for (Elevator e : elevators) {
+                if (e.serves(f)) {
+                    res[n++] = f;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(res, n);
+    }
+
+    /*
+     здание по умолчанию: 10 этажей, 3 лифта на 5, 5 и 10 человек
+     или описание из свойства elevator.building (см. BuildingConfig)
+     */
+    public static Building createDefault() {
+        BuildingConfig config;
+        try {
+            config = BuildingConfig.fromSystemProperty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (config != null) {
+            return new Building(config);
+        }
+        return new Building(ElevatorRequestSimulation.floorCount, new int[]{ 5, 5, 10 });
+    }
+
+    public int floorCount() {
+        return floorCount;
+    }
+
+    public HallCallRegistry getHallCalls() {
+        return hallCalls;
+    }
+
+    public Elevator[] getElevators() {
+        return elevators;
+    }
+
+    public int[] getCallFloors() {
+        return callFloors;
+    }
+
+    // есть ли лифт, который ходит и на этаж a, и на этаж b (поездка без пересадки)
+    public boolean sameBank(int a, int b) {
+        for (Elevator e : elevators) {
+            if (e.serves(a) && e.serves(b)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // снять и опубликовать снимок здания на момент time
+    public void publish(long time) {
+        snapshot = BuildingSnapshot.capture(this, time);
+    }
+
+    public void publish(BuildingSnapshot s) {
+        snapshot = s;
+    }
+
+    public BuildingSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /*
+     вернуть здание в начальное состояние перед новым запуском: на этажах никого,
+     лифты пустые и без маршрутов на домашних этажах, счётчики лифтов обнулены
+     (вызывать, пока здание не работает, до создания нового движка)
+     */
+    public void reset() {
+        hallCalls.clear();
+        for (Elevator e : elevators) {
+            e.reset();
+        }
+        publish(0);
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+}
@@ -0,0 +1,249 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ описание здания: этажей сколько угодно, лифты сгруппированы в банки,
+ каждый банк обслуживает свои этажи (зоны, экспрессы до скай-лобби)
+
+   floors=300
+   # банк: этажи (диапазоны через запятую), лифтов, вместимость, домашний этаж
+   bank.low.floors=1-100
+   bank.low.cars=6
+   bank.low.capacity=16
+   bank.express.floors=1,150
+   bank.express.capacity=20,20,20
+   bank.sky.floors=150-300
+   bank.sky.cars=6
+   bank.sky.home=150
+
+ capacity - одно число на все лифты банка или список (тогда cars не нужен)
+ home - где лифт стоит без заявок и высаживает людей (по умолчанию нижний этаж банка)
+ люди едут в лобби (1 этаж); высаженные в скай-лобби пересаживаются на лифт, идущий ниже
+ строки можно разделять и точкой с запятой (описание прямо в командной строке)
+ */
+public class BuildingConfig {
+
+    // системное свойство: файл с описанием или само описание (-Delevator.building=building.properties)
+    public static final String PROPERTY = "elevator.building";
+
+    // группа одинаковых лифтов
+    static final class Bank {
+        final String name;
+        String floorsText; // как задано в описании, разбирается, когда известно число этажей
+        StopSet floors;
+        int[] capacities = { 10 };
+        int cars = -1;     // -1 - по числу capacity
+        int home = -1;     // -1 - нижний обслуживаемый этаж
+
+        Bank(String name) {
+            this.name = name;
+        }
+
+        int[] carCapacities() {
+            int n = cars > 0 ? cars : capacities.length;
+            int[] res = new int[n];
+            for (int i = 0; i < n; i++) {
+                res[i] = capacities[Math.min(i, capacities.length - 1)];
+            }
+            return res;
+        }
+
+        int homeFloor() {
+            return home > 0 ? home : floors.min();
+        }
+    }
+
+    int floors = ElevatorRequestSimulation.floorCount;
+    final List<Bank> banks = new ArrayList<>();
+
+    public static BuildingConfig load(Path file) throws IOException {
+        return parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    /*
+     значение свойства elevator.building: путь к файлу или описание через ';'
+     null - свойство не задано
+     */
+    public static BuildingConfig fromSystemProperty() throws IOException {
+        String v = System.getProperty(PROPERTY);
+        if (v == null || v.isEmpty()) {
+            return null;
+        }
+        return v.contains("=") ? parse(v) : load(Paths.get(v));
+    }
+
+    public static BuildingConfig parse(String text) {
+        BuildingConfig c = new BuildingConfig();
+        for (String raw : text.split("[\\n;]")) {
+            String line = raw.trim();
+            int hash = line.indexOf('#');
+            if (hash >= 0) {
+                line = line.substring(0, hash).trim();
+            }
+            if (line.isEmpty()) {
+                continue;
+            }
+            int eq = line.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("ожидалось ключ=значение: " + line);
+            }
+            String key = line.substring(0, eq).trim();
+            String value = line.substring(eq + 1).trim();
+
+            if (key.equals("floors")) {
+                c.floors = Integer.parseInt(value);
+            } else if (key.startsWith("bank.") && key.lastIndexOf('.') > 5) {
+                int dot = key.lastIndexOf('.');
+                Bank b = c.bank(key.substring(5, dot));
+                switch (key.substring(dot + 1)) {
+                    case "floors": b.floorsText = value; break;
+                    case "cars": b.cars = Integer.parseInt(value); break;
+                    case "capacity": b.capacities = parseInts(value); break;
+                    case "home": b.home = Integer.parseInt(value); break;
+                    default:
+                        throw new IllegalArgumentException("неизвестный ключ " + key);
+                }
+            } else {
+                throw new IllegalArgumentException("неизвестный ключ " + key);
+            }
+        }
+        c.validate();
+        return c;
+    }
+
+    private Bank bank(String name) {
+        for (Bank b : banks) {
+            if (b.name.equals(name)) {
+                return b;
+            }
+        }
+        Bank b = new Bank(name);
+        banks.add(b);
+        return b;
+    }
+
+    /*
+     "1,41-80" -> {1, 41..80}; каждый этаж и диапазон проверяется до заполнения набора,
+     поэтому отрицательный этаж или диапазон в миллиарды этажей не доходят до BitStopSet
+     @param floors // этажей в здании
+     @param bank // имя банка для сообщения об ошибке
+     */
+    static StopSet parseFloors(String v, int floors, String bank) {
+        StopSet set = new BitStopSet(floors + 1);
+        for (String part : v.split(",")) {
+            String p = part.trim();
+            int dash = p.indexOf('-', 1);
+            int from;
+            int to;
+            try {
+                from = Integer.parseInt((dash > 0 ? p.substring(0, dash) : p).trim());
+                to = dash > 0 ? Integer.parseInt(p.substring(dash + 1).trim()) : from;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("банк " + bank + ": неверные этажи " + p);
+            }
+            if (from < 1 || to > floors || from > to) {
+                throw new IllegalArgumentException("банк " + bank + ": этажи " + p + " вне здания (1-" + floors + ")");
+            }
+            for (int f = from; f <= to; f++) {
+                set.add(f);
+            }
+        }
+        return set;
+    }
+
+    private static int[] parseInts(String v) {
+        String[] parts = v.split(",");
+        int[] res = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            res[i] = Integer.parseInt(parts[i].trim());
+        }
+        return res;
+    }
+
+    private void validate() {
+        if (floors < 2) {
+            throw new IllegalArgumentException("этажей должно быть не меньше 2: " + floors);
+        }
+        if (banks.isEmpty()) {
+            // один банк на все этажи
+            Bank b = bank("main");
+            b.floorsText = "1-" + floors;
+            b.capacities = new int[]{ 5, 5, 10 };
+        }
+        boolean lobby = false;
+        for (Bank b : banks) {
+            if (b.floorsText == null) {
+                throw new IllegalArgumentException("банк " + b.name + ": не заданы этажи");
+            }
+            b.floors = parseFloors(b.floorsText, floors, b.name);
+            if (!b.floors.contains(b.homeFloor())) {
+                throw new IllegalArgumentException("банк " + b.name + ": домашний этаж не обслуживается");
+            }
+            for (int cap : b.capacities) {
+                if (cap <= 0) {
+                    throw new IllegalArgumentException("банк " + b.name + ": вместимость должна быть больше 0");
+                }
+            }
+            lobby |= b.floors.contains(1);
+        }
+        if (!lobby) {
+            throw new IllegalArgumentException("ни один банк не обслуживает лобби (1 этаж)");
+        }
+        checkLobbyReachable();
+    }
+
+    /*
+     с любого обслуживаемого этажа можно доехать до лобби: обход в ширину по банкам
+     от тех, что ходят на 1 этаж; соседние банки - с общим этажом (там пересадка)
+     */
+    private void checkLobbyReachable() {
+        int n = banks.size();
+        boolean[] reached = new boolean[n];
+        int[] queue = new int[n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (banks.get(i).floors.contains(1)) {
+                reached[i] = true;
+                queue[size++] = i;
+            }
+        }
+        for (int q = 0; q < size; q++) {
+            StopSet from = banks.get(queue[q]).floors;
+            for (int j = 0; j < n; j++) {
+                if (!reached[j] && shareFloor(from, banks.get(j).floors)) {
+                    reached[j] = true;
+                    queue[size++] = j;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (!reached[i]) {
+                throw new IllegalArgumentException("банк " + banks.get(i).name
+                        + ": с его этажей не доехать до лобби - нет общего этажа пересадки"
+                        + " с банками, которые туда ведут");
+            }
+        }
+    }
+
+    private static boolean shareFloor(StopSet a, StopSet b) {
+        for (int f = a.min(); f > 0; f = a.next(f + 1)) {
+            if (b.contains(f)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int carCount() {
+        int n = 0;
+        for (Bank b : banks) {
+            n += b.carCapacities().length;
+        }
+        return n;
+    }
+}
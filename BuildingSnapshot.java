@@ -0,0 +1,96 @@
+/**
+ неизменяемый снимок здания на момент time: сколько ждут на каждом этаже,
+ где лифты, их загрузка и состояние
+
+ движок снимает его раз в такт и публикует через volatile-ссылку в Building
+ (см. Building.publish), отрисовка читает только снимки и не берёт мониторы
+ лифтов: пока панель рисует старый снимок, движок собирает следующий
+ */
+public final class BuildingSnapshot {
+
+    private final long time;
+    private final int[] waiting;      // индекс - этаж
+    private final int[] carFloor;     // индекс - номер лифта - 1
+    private final int[] carLoad;
+    private final int[] carCapacity;
+    private final Elevator.ElevSt[] carState;
+
+    /**
+    @param time // виртуальное время снимка, мс
+    @param waiting // ждут на этаже (индекс - этаж), массив не копируется
+    @param carFloor // этажи лифтов, массив не копируется
+    @param carLoad // загрузка лифтов, массив не копируется
+    @param carCapacity // грузоподъёмность лифтов, массив не копируется
+    @param carState // состояния лифтов, массив не копируется
+     */
+    BuildingSnapshot(long time, int[] waiting, int[] carFloor, int[] carLoad, int[] carCapacity,
+                     Elevator.ElevSt[] carState) {
+        this.time = time;
+        this.waiting = waiting;
+        this.carFloor = carFloor;
+        this.carLoad = carLoad;
+        this.carCapacity = carCapacity;
+        this.carState = carState;
+    }
+
+    /*
+     снять состояние здания; мониторы лифтов берутся по одному и ненадолго,
+     поэтому вызывать из потока движка (или потока проигрывания), а не из EDT
+     */
+    public static BuildingSnapshot capture(Building building, long time) {
+        HallCallRegistry hallCalls = building.getHallCalls();
+        Elevator[] elevators = building.getElevators();
+        int[] waiting = new int[building.floorCount() + 1];
+        for (int f = 1; f < waiting.length; f++) {
+            waiting[f] = hallCalls.waiting(f);
+        }
+        int n = elevators.length;
+        int[] floor = new int[n];
+        int[] load = new int[n];
+        int[] cap = new int[n];
+        Elevator.ElevSt[] state = new Elevator.ElevSt[n];
+        for (int i = 0; i < n; i++) {
+            Elevator e = elevators[i];
+            synchronized (e) {
+                floor[i] = e.currFloor;
+                load[i] = e.currLoad;
+                cap[i] = e.capacity;
+                state[i] = e.state;
+            }
+        }
+        return new BuildingSnapshot(time, waiting, floor, load, cap, state);
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public int floorCount() {
+        return waiting.length - 1;
+    }
+
+    public int waiting(int floor) {
+        return floor >= 1 && floor < waiting.length ? waiting[floor] : 0;
+    }
+
+    public int carCount() {
+        return carFloor.length;
+    }
+
+    // i - индекс лифта (номер лифта - 1)
+    public int carFloor(int i) {
+        return carFloor[i];
+    }
+
+    public int carLoad(int i) {
+        return carLoad[i];
+    }
+
+    public int carCapacity(int i) {
+        return carCapacity[i];
+    }
+
+    public Elevator.ElevSt carState(int i) {
+        return carState[i];
+    }
+}
@@ -0,0 +1,94 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ частота вызовов по этажам: экспоненциально затухающий счётчик (EWMA по времени)
+ на каждый этаж хранится одно число и время последнего обновления, история
+ не копится; вызов давностью tau весит в e раз меньше свежего
+
+ оценка для этажа: затухающая сумма людей, делённая на tau (в чел. в минуту)
+ пишет и читает только поток движка (вызовы, такт стоянки), поэтому без замков
+ */
+public class CallRateEstimator {
+
+    // постоянная времени по умолчанию, мс виртуального времени (5 минут)
+    public static final long DEFAULT_TAU = 5 * 60 * 1000L;
+
+    private final double tau;
+    private final double[] value; // затухающая сумма людей на момент stamp
+    private final long[] stamp;
+
+    /**
+    @param floorCount // количество этажей (этажи нумеруются с 1)
+    @param tau // постоянная времени затухания, мс
+     */
+    public CallRateEstimator(int floorCount, long tau) {
+        if (tau <= 0) {
+            throw new IllegalArgumentException("tau должно быть больше 0: " + tau);
+        }
+        this.tau = tau;
+        this.value = new double[floorCount + 1];
+        this.stamp = new long[floorCount + 1];
+    }
+
+    public CallRateEstimator(int floorCount) {
+        this(floorCount, DEFAULT_TAU);
+    }
+
+    private double decayed(int floor, long now) {
+        long dt = now - stamp[floor];
+        return dt <= 0 ? value[floor] : value[floor] * Math.exp(-dt / tau);
+    }
+
+    // people человек вызвали лифт на этаж floor в момент time
+    public void record(int floor, int people, long time) {
+        if (floor < 1 || floor >= value.length) {
+            return;
+        }
+        value[floor] = decayed(floor, time) + people;
+        stamp[floor] = Math.max(stamp[floor], time);
+    }
+
+    // оценка частоты на этаже, чел. в минуту
+    public double rate(int floor, long now) {
+        if (floor < 1 || floor >= value.length) {
+            return 0;
+        }
+        return decayed(floor, now) / tau * 60_000.0;
+    }
+
+    // оценки по всем этажам сразу (индекс - этаж), в тех же единицах
+    public double[] rates(long now) {
+        double[] res = new double[value.length];
+        for (int f = 1; f < value.length; f++) {
+            res[f] = decayed(f, now) / tau * 60_000.0;
+        }
+        return res;
+    }
+
+    // для контрольной точки (см. Checkpoint)
+    void writeState(DataOutput out) throws IOException {
+        out.writeDouble(tau);
+        for (int f = 1; f < value.length; f++) {
+            out.writeDouble(value[f]);
+            out.writeLong(stamp[f]);
+        }
+    }
+
+    void readState(DataInput in) throws IOException {
+        if (in.readDouble() != tau) {
+            throw new IOException("в контрольной точке другая постоянная времени частот вызовов");
+        }
+        for (int f = 1; f < value.length; f++) {
+            value[f] = in.readDouble();
+            stamp[f] = in.readLong();
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(value, 0);
+        Arrays.fill(stamp, 0);
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ источник вызовов, упорядоченных по времени (например, запись реального трафика)
+ движок берёт следующий вызов только после обработки предыдущего
+ */
+public interface CallSource extends AutoCloseable {
+
+    // следующий вызов или null, если вызовы кончились
+    HallCall next();
+
+    @Override
+    default void close() {
+    }
+}
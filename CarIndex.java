@@ -0,0 +1,110 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntPredicate;
+
+/**
+ индекс лифтов по этажам: на каждом этаже - битовая маска лифтов, которые там сейчас,
+ и число лифтов на этаже; перемещение лифта - O(1) (вызывается из шага лифта и возврата
+ домой), поиск ближайших идёт от этажа вызова по этажам, где есть хоть один лифт
+
+ замков нет: лифт сам переносит свой бит под своим монитором (сначала снимает
+ со старого этажа, потом ставит на новый), маски и счётчики атомарные, поэтому
+ шаги лифтов в разных потоках друг друга и диспетчера не ждут
+ поиск во время шагов может не увидеть лифт, который как раз переезжает, - это
+ только отбор кандидатов, стоимость считается потом под монитором лифта; в движке
+ (ENGINE, PHASED) назначение идёт между шагами, и индекс там всегда точный
+
+ лифты - индексы в массиве лифтов диспетчера
+ */
+public class CarIndex {
+
+    private final int words;               // слов маски на этаж
+    private final int[] floorOf;           // этаж лифта, 0 - лифт не в индексе (пишет только сам лифт)
+    private final AtomicLongArray cars;    // [этаж * words + лифт / 64]
+    private final AtomicIntegerArray count; // лифтов на этаже
+    private final int floors;
+
+    /**
+    @param floors // количество этажей (этажи нумеруются с 1)
+    @param cars // количество лифтов
+     */
+    public CarIndex(int floors, int cars) {
+        this.floors = floors;
+        this.words = (cars + 63) >>> 6;
+        this.floorOf = new int[cars];
+        this.cars = new AtomicLongArray((floors + 1) * words);
+        this.count = new AtomicIntegerArray(floors + 1);
+    }
+
+    /*
+     лифт car теперь на этаже floor
+     вызывает только сам лифт (под своим монитором), поэтому floorOf без гонок
+     */
+    public void move(int car, int floor) {
+        int old = floorOf[car];
+        if (old == floor) {
+            return;
+        }
+        long bit = 1L << (car & 63);
+        if (old > 0) {
+            int i = old * words + (car >>> 6);
+            long v;
+            do {
+                v = cars.get(i);
+            } while (!cars.compareAndSet(i, v, v & ~bit));
+            count.decrementAndGet(old);
+        }
+        floorOf[car] = floor;
+        int i = floor * words + (car >>> 6);
+        long v;
+        do {
+            v = cars.get(i);
+        } while (!cars.compareAndSet(i, v, v | bit));
+        count.incrementAndGet(floor);
+    }
+
+    /*
+     k лифтов, прошедших accept, с ближайших к floor этажей (меньше, если столько нет)
+     в into начиная с from; расстояние растёт, пока не наберётся k; с последнего расстояния
+     (снизу и сверху) берутся лифты с меньшими индексами, поэтому набор не зависит
+     от порядка переездов (на стоянке лифтов может быть сколько угодно)
+     в into после from - место не меньше числа лифтов; возвращает, сколько всего записано
+     */
+    public int nearest(int floor, int k, IntPredicate accept, int[] into, int from) {
+        int n = from;
+        k += from;
+        for (int d = 0; n < k && (floor + d <= floors || floor - d >= 1); d++) {
+            int ring = n;
+            if (floor + d <= floors) {
+                n = collect(floor + d, accept, into, n);
+            }
+            if (d > 0 && floor - d >= 1) {
+                n = collect(floor - d, accept, into, n);
+            }
+            if (n > k) {
+                Arrays.sort(into, ring, n);
+                n = k;
+            }
+        }
+        return n;
+    }
+
+    private int collect(int floor, IntPredicate accept, int[] into, int n) {
+        if (count.get(floor) <= 0) {
+            return n;
+        }
+        int base = floor * words;
+        for (int w = 0; w < words && n < into.length; w++) {
+            long v = cars.get(base + w);
+            while (v != 0 && n < into.length) {
+                int car = (w << 6) + Long.numberOfTrailingZeros(v);
+                v &= v - 1;
+                if (accept.test(car)) {
+                    into[n++] = car;
+                }
+            }
+        }
+        return n;
+    }
+}
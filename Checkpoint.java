@@ -0,0 +1,258 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ контрольная точка: полное состояние движка на паузе (см. SimulationEngine.runUntil) -
+ описание здания, часы, генератор, очередь событий, вызовы и пассажиры на этажах,
+ положение, маршрут и пассажиры каждого лифта, назначения диспетчера и метрики
+
+ restore продолжает прогон так, будто его не прерывали (тот же отпечаток в конце),
+ fork - то же состояние с другим зерном генератора: от одного прогретого начала
+ можно пустить сколько угодно вариантов, меняя стратегию, стоянку, поток и т.п.
+ настройки (стратегия, стоянка, журнал, бюджет назначения) в точку не входят -
+ их задают восстановленному движку заново
+
+ в памяти точка - массив байт (DataOutput), в файле - он же, сжатый gzip:
+   int magic | int версия | long время | здание | состояние движка (SimulationEngine.writeState)
+ только режим ENGINE и без внешнего источника вызовов
+ */
+public final class Checkpoint {
+
+    static final int MAGIC = 0x45434B50; // "ECKP"
+    static final int VERSION = 2;
+
+    private final byte[] data;
+    private final long time;
+
+    private Checkpoint(byte[] data, long time) {
+        this.data = data;
+        this.time = time;
+    }
+
+    /*
+     снять точку с движка на паузе (или ещё не запущенного)
+     */
+    public static Checkpoint capture(SimulationEngine engine) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(engine.now());
+            writeBuilding(out, engine.getBuilding());
+            engine.writeState(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Checkpoint(bytes.toByteArray(), engine.now());
+    }
+
+    // виртуальное время точки, мс
+    public long getTime() {
+        return time;
+    }
+
+    // размер состояния без сжатия, байт
+    public int size() {
+        return data.length;
+    }
+
+    // новый движок в состоянии точки; run() продолжит прогон с того же места
+    public SimulationEngine restore() {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("это не контрольная точка");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("неподдерживаемая версия контрольной точки: " + version);
+            }
+            in.readLong();
+            Building building = readBuilding(in);
+            SimulationEngine engine = new SimulationEngine(building, 0);
+            engine.readState(in);
+            return engine;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // то же, но дальше вызовы идут от генератора с зерном seed
+    public SimulationEngine fork(long seed) {
+        SimulationEngine engine = restore();
+        engine.reseed(seed);
+        return engine;
+    }
+
+    public void write(Path file) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.write(data);
+        }
+    }
+
+    public static Checkpoint read(Path file) throws IOException {
+        byte[] data;
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            data = in.readAllBytes();
+        }
+        if (data.length < 16) {
+            throw new IOException(file + ": это не контрольная точка");
+        }
+        return new Checkpoint(data, new DataInputStream(new ByteArrayInputStream(data, 8, 8)).readLong());
+    }
+
+    /*
+     здание: этажи, затем по лифтам грузоподъёмность, домашний этаж и номера наборов
+     обслуживаемых этажей и пересадок (-1 - нет); одинаковые наборы общие у банка,
+     поэтому пишутся один раз в таблицу наборов
+     */
+    private static void writeBuilding(DataOutput out, Building building) throws IOException {
+        Elevator[] cars = building.getElevators();
+        Map<StopSet, Integer> ids = new IdentityHashMap<>();
+        List<StopSet> sets = new ArrayList<>();
+        int[] served = new int[cars.length];
+        int[] transfers = new int[cars.length];
+        for (int i = 0; i < cars.length; i++) {
+            served[i] = setId(cars[i].getServedFloors(), ids, sets);
+            transfers[i] = setId(cars[i].getTransferFloors(), ids, sets);
+        }
+        out.writeInt(building.floorCount());
+        out.writeInt(sets.size());
+        for (StopSet s : sets) {
+            writeFloors(out, s);
+        }
+        out.writeInt(cars.length);
+        for (int i = 0; i < cars.length; i++) {
+            out.writeInt(cars[i].capacity);
+            out.writeInt(cars[i].getHomeFloor());
+            out.writeInt(served[i]);
+            out.writeInt(transfers[i]);
+        }
+    }
+
+    private static int setId(StopSet s, Map<StopSet, Integer> ids, List<StopSet> sets) {
+        if (s == null) {
+            return -1;
+        }
+        Integer id = ids.get(s);
+        if (id == null) {
+            id = sets.size();
+            ids.put(s, id);
+            sets.add(s);
+        }
+        return id;
+    }
+
+    private static Building readBuilding(DataInput in) throws IOException {
+        int floors = in.readInt();
+        StopSet[] sets = new StopSet[in.readInt()];
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = new BitStopSet(floors + 1);
+            readFloors(in, sets[i]);
+        }
+        int n = in.readInt();
+        int[] capacities = new int[n];
+        int[] homes = new int[n];
+        StopSet[] served = new StopSet[n];
+        StopSet[] transfers = new StopSet[n];
+        for (int i = 0; i < n; i++) {
+            capacities[i] = in.readInt();
+            homes[i] = in.readInt();
+            int s = in.readInt();
+            int t = in.readInt();
+            served[i] = s < 0 ? null : sets[s];
+            transfers[i] = t < 0 ? null : sets[t];
+        }
+        return new Building(floors, capacities, served, homes, transfers);
+    }
+
+    // набор этажей: число и этажи по возрастанию
+    static void writeFloors(DataOutput out, StopSet s) throws IOException {
+        out.writeInt(s.size());
+        for (int f = s.min(); f >= 0; f = s.next(f + 1)) {
+            out.writeInt(f);
+        }
+    }
+
+    static void readFloors(DataInput in, StopSet into) throws IOException {
+        into.clear();
+        for (int n = in.readInt(); n > 0; n--) {
+            into.add(in.readInt());
+        }
+    }
+
+    /*
+     java Checkpoint save файл мс [шагов] [зерно]  - прогнать здание по умолчанию до момента мс и сохранить
+     java Checkpoint resume файл                    - продолжить до конца, отпечаток как у прогона без паузы
+     java Checkpoint fork файл [стратегии] [зёрен]  - варианты от одной точки: стратегии через запятую,
+                                                      для каждой зёрна 1..N
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("java Checkpoint save|resume|fork файл ...");
+            return;
+        }
+        Path file = Paths.get(args[1]);
+        switch (args[0]) {
+            case "save": {
+                long at = Long.parseLong(args[2]);
+                int steps = args.length > 3 ? Integer.parseInt(args[3]) : ElevatorRequestSimulation.simulationSteps;
+                long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+                SimulationEngine engine = SimulationEngine.createDefault(seed);
+                engine.setSimulationSteps(steps);
+                long start = System.nanoTime();
+                engine.runUntil(at);
+                Checkpoint cp = capture(engine);
+                cp.write(file);
+                System.out.printf("[ТОЧКА] время=%d мс, состояние=%d байт, файл=%d байт, прогон до точки=%d мс%n",
+                        cp.getTime(), cp.size(), Files.size(file), (System.nanoTime() - start) / 1_000_000L);
+                break;
+            }
+            case "resume": {
+                Checkpoint cp = read(file);
+                SimulationEngine engine = cp.restore();
+                engine.run();
+                System.out.printf("[ТОЧКА] с %d мс до %d мс, вызовов=%d, отпечаток=%016x%n",
+                        cp.getTime(), engine.now(), engine.getCallCount(), engine.fingerprint());
+                System.out.println(engine.getPassengerMetrics().report());
+                break;
+            }
+            case "fork": {
+                Checkpoint cp = read(file);
+                String[] strategies = args.length > 2 ? args[2].split(",") : new String[] { "nearest" };
+                int seeds = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+                for (String s : strategies) {
+                    for (int seed = 1; seed <= seeds; seed++) {
+                        SimulationEngine engine = cp.fork(seed);
+                        engine.getDispatcher().setStrategy(DispatchStrategy.byName(s));
+                        engine.run();
+                        LatencyHistogram wait = engine.getPassengerMetrics().getWait();
+                        System.out.printf("[ВАРИАНТ] стратегия=%s, зерно=%d, ожидание: среднее=%.0f %s%n",
+                                s, seed, wait.getMean(), wait.summary());
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("неизвестная команда " + args[0]);
+        }
+    }
+}
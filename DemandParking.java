@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ стоянка по спросу: лифты банка расставляются по квантилям частоты вызовов
+ (см. CallRateEstimator) на обслуживаемых банком этажах, лифт j из n стоит
+ там, где накопленный спрос снизу доходит до (j + 0.5) / n - свободный лифт
+ оказывается рядом с местом, откуда вероятнее всего придёт следующий вызов
+
+ стоянки пересчитываются не чаще раза в refresh мс на такте движка (refresh(now)),
+ готовый массив публикуется целиком через volatile-поле и больше не меняется -
+ лифты его только читают, без замков; пока вызовов не было, лифты стоят
+ на домашнем этаже
+ */
+public class DemandParking implements ParkingPolicy {
+
+    // как часто пересчитывать стоянки, мс виртуального времени
+    public static final long DEFAULT_REFRESH = 10_000L;
+
+    private final Elevator[] elevators;
+    private final CallRateEstimator rates;
+    private final long refresh;
+
+    // банки: индексы лифтов и их обслуживаемые этажи (по возрастанию)
+    private final int[][] groupCars;
+    private final int[][] groupFloors;
+
+    // стоянка каждого лифта (индекс - номер лифта - 1), массив не меняется после публикации
+    private volatile int[] targets;
+    private long refreshedAt = Long.MIN_VALUE; // только поток движка
+
+    /**
+    @param building // здание (лифты и их зоны)
+    @param rates // частоты вызовов по этажам
+    @param refresh // как часто пересчитывать стоянки, мс
+     */
+    public DemandParking(Building building, CallRateEstimator rates, long refresh) {
+        this.elevators = building.getElevators();
+        this.rates = rates;
+        this.refresh = refresh;
+
+        // лифты с одинаковыми обслуживаемыми этажами и домашним этажом - один банк
+        List<int[]> cars = new ArrayList<>();
+        List<int[]> floors = new ArrayList<>();
+        boolean[] grouped = new boolean[elevators.length];
+        int floorCount = building.floorCount();
+        for (int i = 0; i < elevators.length; i++) {
+            if (grouped[i]) {
+                continue;
+            }
+            Elevator e = elevators[i];
+            int[] members = new int[elevators.length];
+            int n = 0;
+            for (int j = i; j < elevators.length; j++) {
+                Elevator o = elevators[j];
+                if (!grouped[j] && o.getServedFloors() == e.getServedFloors()
+                        && o.getHomeFloor() == e.getHomeFloor()) {
+                    grouped[j] = true;
+                    members[n++] = j;
+                }
+            }
+            cars.add(Arrays.copyOf(members, n));
+            int[] served = new int[floorCount];
+            int m = 0;
+            for (int f = 1; f <= floorCount; f++) {
+                if (e.serves(f)) {
+                    served[m++] = f;
+                }
+            }
+            floors.add(Arrays.copyOf(served, m));
+        }
+        this.groupCars = cars.toArray(new int[0][]);
+        this.groupFloors = floors.toArray(new int[0][]);
+        int[] homes = new int[elevators.length];
+        for (int i = 0; i < elevators.length; i++) {
+            homes[i] = elevators[i].getHomeFloor();
+        }
+        this.targets = homes;
+    }
+
+    @Override
+    public int parkingFloor(Elevator e) {
+        int[] t = targets;
+        int i = e.getId() - 1;
+        return i >= 0 && i < t.length && elevators[i] == e ? t[i] : e.getHomeFloor();
+    }
+
+    @Override
+    public void refresh(long now) {
+        if (refreshedAt == Long.MIN_VALUE || now - refreshedAt >= refresh) {
+            targets = recompute(now);
+            refreshedAt = now;
+        }
+    }
+
+    private int[] recompute(long now) {
+        int[] targets = new int[elevators.length];
+        double[] r = rates.rates(now);
+        for (int g = 0; g < groupCars.length; g++) {
+            int[] cars = groupCars[g];
+            int[] floors = groupFloors[g];
+            double total = 0;
+            for (int f : floors) {
+                total += r[f];
+            }
+            if (total <= 0) {
+                for (int i : cars) {
+                    targets[i] = elevators[i].getHomeFloor();
+                }
+                continue;
+            }
+            // один проход по этажам: квантили идут по возрастанию
+            int k = 0;
+            double acc = 0;
+            for (int j = 0; j < cars.length; j++) {
+                double q = total * (j + 0.5) / cars.length;
+                while (k < floors.length - 1 && acc + r[floors[k]] < q) {
+                    acc += r[floors[k]];
+                    k++;
+                }
+                targets[cars[j]] = floors[k];
+            }
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ диспетчеризация по назначению: пассажир называет этаж при вызове и сразу
+ закрепляется за лифтом; лифт, который и так останавливается на этаже посадки
+ и на этаже выхода, дешевле лифта, которому придётся делать лишние остановки
+ (каждая новая остановка штрафуется отдельно), поэтому едущие на близкие этажи
+ собираются в одну кабину и остановок за рейс становится меньше
+ */
+public class DestinationDispatchStrategy implements DispatchStrategy {
+
+    private final int stopPenalty; // штраф за новую остановку, в этажах
+
+    public DestinationDispatchStrategy() {
+        this(3);
+    }
+
+    public DestinationDispatchStrategy(int stopPenalty) {
+        this.stopPenalty = stopPenalty;
+    }
+
+    @Override
+    public int cost(Elevator e, int floor) {
+        synchronized (e) {
+            if (e.currLoad >= e.capacity) {
+                return Integer.MAX_VALUE;
+            }
+            int cost = e.routeCostWith(floor);
+            if (!e.upReq.contains(floor) && !e.downReq.contains(floor)) {
+                cost += stopPenalty;
+            }
+            return cost;
+        }
+    }
+
+    @Override
+    public int cost(Elevator e, int origin, int destination, int people) {
+        synchronized (e) {
+            // места считаются вместе с обещанными закреплённым пассажирам
+            if (e.currLoad + e.reserved + people > e.capacity) {
+                return Integer.MAX_VALUE;
+            }
+            int leg = e.legFor(destination, origin);
+            if (leg < 0) {
+                return Integer.MAX_VALUE;
+            }
+            int cost = e.routeCostWith(origin);
+            if (!e.upReq.contains(origin) && !e.downReq.contains(origin)) {
+                cost += stopPenalty;
+            }
+            if (!e.stopsAt(leg)) {
+                cost += stopPenalty;
+            }
+            return cost;
+        }
+    }
+
+    @Override
+    public boolean assignsPassengers() {
+        return true;
+    }
+}
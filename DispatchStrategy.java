@@ -0,0 +1,59 @@
+/**
+ стратегия назначения: стоимость передачи вызова с этажа floor лифту e
+ (чем больше, тем хуже; Integer.MAX_VALUE - лифт взять вызов не может)
+ реализация не должна менять лифт и может вызываться из нескольких потоков
+ */
+public interface DispatchStrategy {
+
+    int cost(Elevator e, int floor);
+
+    /*
+     стоимость закрепить за лифтом e people пассажиров с этажа origin на этаж destination
+     (по умолчанию этаж назначения не учитывается)
+     */
+    default int cost(Elevator e, int origin, int destination, int people) {
+        return cost(e, origin);
+    }
+
+    // закреплять пассажиров за лифтом сразу при вызове (см. Dispatcher.call)
+    default boolean assignsPassengers() {
+        return false;
+    }
+
+    /*
+     стратегия по имени: nearest, eta, destination
+     коэффициенты можно задать через двоеточие:
+       nearest:0.9:1.2:0.7:0.5 (по пути, против движения, на этаже, вес загрузки)
+       destination:3 (штраф за остановку)
+     */
+    static DispatchStrategy byName(String name) {
+        String[] parts = name.split(":");
+        switch (parts[0]) {
+            case "nearest":
+                if (parts.length == 5) {
+                    return new NearestCarStrategy(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                            Double.parseDouble(parts[3]), Double.parseDouble(parts[4]));
+                }
+                if (parts.length == 1) {
+                    return NearestCarStrategy.DEFAULT;
+                }
+                break;
+            case "eta":
+                if (parts.length == 1) {
+                    return new EtaStrategy(SimulationEngine.STEP_TIME, SimulationEngine.DOOR_TIME);
+                }
+                break;
+            case "destination":
+                if (parts.length == 2) {
+                    return new DestinationDispatchStrategy(Integer.parseInt(parts[1]));
+                }
+                if (parts.length == 1) {
+                    return new DestinationDispatchStrategy();
+                }
+                break;
+            default:
+                break;
+        }
+        throw new IllegalArgumentException("неизвестная стратегия " + name);
+    }
+}
@@ -0,0 +1,549 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ диспетчер вызовов: рассматривает только новые или освободившиеся вызовы
+ этаж, уже назначенный лифту, повторно не предлагается, пока лифт его не обслужит
+ общего замка нет - стоимость считается под монитором каждого лифта по отдельности
+
+ вызов с известным этажом назначения может назначаться сразу лифту (call):
+ пассажиры закрепляются за ним, и лифт собирает попутчиков с близкими остановками
+ */
+public class Dispatcher {
+
+    // этаж никому не назначен
+    static final int UNASSIGNED = 0;
+    // этаж ждёт в очереди на назначение
+    static final int QUEUED = -1;
+
+    // с какого числа лифтов стоимость считается параллельно
+    // (одна оценка стоит десятки нс, на малых группах fork-join не окупается)
+    public static final int PARALLEL_THRESHOLD = 256;
+
+    // с какого числа лифтов-кандидатов этажа считаем только ближайшие (см. CarIndex)
+    public static final int INDEX_THRESHOLD = 32;
+    // сколько ближайших лифтов с местом оценивать (0 - оценивать всех кандидатов)
+    public static final int NEAREST_CARS = 8;
+    // сколько этажей очереди решать совместно за раз (остальные - по одному)
+    public static final int MAX_BATCH = 64;
+
+    private final Elevator[] elevators;
+    private final HallCallRegistry hallCalls;
+    private volatile DispatchStrategy strategy = NearestCarStrategy.DEFAULT;
+    private int parallelThreshold = PARALLEL_THRESHOLD;
+    private int nearestCars = NEAREST_CARS;
+    private long batchBudget = 0; // нс на совместное назначение, 0 - только по одному
+    private EventSink log = EventSink.NOOP;
+
+    // кому назначен этаж: номер лифта, UNASSIGNED или QUEUED
+    private final AtomicIntegerArray assignee;
+    // этажи, которые нужно (пере)назначить
+    private final ConcurrentLinkedQueue<Integer> pending = new ConcurrentLinkedQueue<>();
+    // индексы лифтов, которые могут взять с этажа едущих вверх, вниз и в любую сторону
+    // (этаж обслуживается, и в эту сторону от него есть обслуживаемые этажи)
+    private final int[][] candUp;
+    private final int[][] candDown;
+    private final int[][] candAny;
+    // лифты по этажам, которые сейчас проезжают (обновляют сами лифты);
+    // null - в банках меньше INDEX_THRESHOLD лифтов
+    private final CarIndex index;
+    // ближайшие кандидаты (назначение идёт в одном потоке движка), место на два отбора
+    private final int[] near;
+
+    // статистика
+    private final DispatcherStats stats = new DispatcherStats();
+
+    /**
+    @param elevators // лифты (номера лифтов должны быть разными)
+    @param hallCalls // реестр вызовов с этажей
+     */
+    public Dispatcher(Elevator[] elevators, HallCallRegistry hallCalls) {
+        this.elevators = elevators;
+        this.hallCalls = hallCalls;
+        this.assignee  = new AtomicIntegerArray(hallCalls.floorCount() + 1);
+        for (Elevator e : elevators) {
+            e.setDispatcher(this);
+        }
+        int floors = hallCalls.floorCount();
+        this.near = new int[2 * elevators.length];
+        this.candUp = new int[floors + 1][];
+        this.candDown = new int[floors + 1][];
+        this.candAny = new int[floors + 1][];
+        int[] up = new int[elevators.length];
+        int[] down = new int[elevators.length];
+        int[] any = new int[elevators.length];
+        int widest = 0;
+        for (int f = 1; f <= floors; f++) {
+            int nu = 0;
+            int nd = 0;
+            int na = 0;
+            for (int i = 0; i < elevators.length; i++) {
+                Elevator e = elevators[i];
+                if (!e.serves(f)) {
+                    continue;
+                }
+                boolean above = e.servesAbove(f);
+                boolean below = e.servesBelow(f);
+                if (above) {
+                    up[nu++] = i;
+                }
+                if (below) {
+                    down[nd++] = i;
+                }
+                if (above || below) {
+                    any[na++] = i;
+                }
+            }
+            candUp[f] = Arrays.copyOf(up, nu);
+            candDown[f] = Arrays.copyOf(down, nd);
+            candAny[f] = Arrays.copyOf(any, na);
+            widest = Math.max(widest, na);
+        }
+
+        // индекс нужен, только если у какого-то этажа хватает кандидатов для отбора ближайших;
+        // иначе лифты его не обновляют и при шагах ничего общего не трогают
+        if (widest >= INDEX_THRESHOLD) {
+            this.index = new CarIndex(floors, elevators.length);
+            for (int i = 0; i < elevators.length; i++) {
+                elevators[i].setCarIndex(index, i);
+            }
+        } else {
+            this.index = null;
+        }
+    }
+
+    public void setStrategy(DispatchStrategy strategy) {
+        this.strategy = strategy;
+    }
+
+    public DispatchStrategy getStrategy() {
+        return strategy;
+    }
+
+    public void setEventSink(EventSink log) {
+        this.log = log;
+    }
+
+    // лифты, которые могут взять ждущих на этаже (по направлениям, в которых ждут)
+    private int[] candidates(int floor) {
+        boolean up = hallCalls.waiting(floor, HallCallRegistry.Direction.UP) > 0;
+        boolean down = hallCalls.waiting(floor, HallCallRegistry.Direction.DOWN) > 0;
+        if (up == down) {
+            return candAny[floor];
+        }
+        return up ? candUp[floor] : candDown[floor];
+    }
+
+    private int[] candidates(int floor, HallCallRegistry.Direction dir) {
+        return dir == HallCallRegistry.Direction.UP ? candUp[floor] : candDown[floor];
+    }
+
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    // сколько ближайших лифтов оценивать в больших банках (0 - всех кандидатов)
+    public void setNearestCars(int nearestCars) {
+        this.nearestCars = nearestCars;
+    }
+
+    /*
+     бюджет (нс) на совместное назначение этажей очереди (см. dispatchBatch);
+     0 - каждый этаж берёт лучший для себя лифт по очереди; при бюджете движок
+     назначает вызовы, накопленные за один момент виртуального времени, вместе (см. isBatching)
+     бюджет - реальное время: с откатами на назначение по одному результат прогона
+     зависит от скорости машины (отпечатки совпадают, пока откатов нет)
+     */
+    public void setBatchBudget(long batchBudget) {
+        this.batchBudget = batchBudget;
+    }
+
+    // вызовы одного момента копятся до события DISPATCH движка и назначаются вместе
+    public boolean isBatching() {
+        return batchBudget > 0;
+    }
+
+    /*
+     лифт i может взять ждущих на этаже (как в candidates) и в нём есть место
+     загрузка читается без монитора - это только отбор, стоимость считается потом
+     */
+    private boolean plausible(int i, int floor, boolean up, boolean down) {
+        Elevator e = elevators[i];
+        if (e.currLoad >= e.capacity || !e.serves(floor)) {
+            return false;
+        }
+        if (up == down) {
+            return e.servesAbove(floor) || e.servesBelow(floor);
+        }
+        return up ? e.servesAbove(floor) : e.servesBelow(floor);
+    }
+
+    /*
+     лифт i стоит или едет к этажу floor (вверх снизу, вниз сверху)
+     состояние читается без монитора - это только отбор
+     */
+    private boolean approaching(int i, int floor) {
+        Elevator e = elevators[i];
+        switch (e.state) {
+            case MOVING_UP:
+                return e.currFloor <= floor;
+            case MOVING_DOWN:
+                return e.currFloor >= floor;
+            default:
+                return true;
+        }
+    }
+
+    /*
+     ближайшие к этажу лифты с местом (plausible) в near: сначала до nearestCars тех,
+     что стоят или едут к этажу, остальные места - ближайшим из уезжающих
+     меньше nearestCars - других лифтов с местом нет
+     */
+    private int nearest(int floor) {
+        boolean up = hallCalls.waiting(floor, HallCallRegistry.Direction.UP) > 0;
+        boolean down = hallCalls.waiting(floor, HallCallRegistry.Direction.DOWN) > 0;
+        int n = index.nearest(floor, nearestCars,
+                i -> plausible(i, floor, up, down) && approaching(i, floor), near, 0);
+        if (n < nearestCars) {
+            n = index.nearest(floor, nearestCars - n,
+                    i -> plausible(i, floor, up, down) && !approaching(i, floor), near, n);
+        }
+        return n;
+    }
+
+    /*
+     people человек пришли на этаж floor в момент time и едут на этаж destination
+     при диспетчеризации по назначению (или если довезти их может не любой лифт этажа,
+     например, в другую зону) пассажиров сразу закрепляем за лифтом, иначе вызов
+     с этажа назначается целиком
+     */
+    public void call(int floor, int destination, int people, long time) {
+        HallCallRegistry.Direction dir = HallCallRegistry.direction(floor, destination);
+        if (strategy.assignsPassengers() || !allCarry(floor, destination, dir)) {
+            assignCall(floor, destination, people, time, dir);
+        } else {
+            hallCalls.arrive(floor, dir, people, time, destination);
+            callArrived(floor);
+        }
+    }
+
+    private boolean allCarry(int floor, int destination, HallCallRegistry.Direction dir) {
+        for (int i : candidates(floor, dir)) {
+            if (elevators[i].legFor(destination, floor) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     назначение пассажиров лифту с наименьшей стоимостью с учётом этажа назначения;
+     если все подходящие лифты заняты, вызов назначается с этажа как обычно,
+     а если довезти может не любой лифт - закрепляется за тем, у кого короче маршрут
+     */
+    private void assignCall(int floor, int destination, int people, long time, HallCallRegistry.Direction dir) {
+        stats.calls.increment();
+        DispatchStrategy s = strategy;
+        int[] cars = candidates(floor, dir);
+        long start = System.nanoTime();
+        Elevator best = null;
+        long bestCost = Long.MAX_VALUE;
+        Elevator nearest = null;
+        long nearestCost = Long.MAX_VALUE;
+        for (int i : cars) {
+            Elevator e = elevators[i];
+            if (e.legFor(destination, floor) < 0) {
+                continue;
+            }
+            long c = s.cost(e, floor, destination, people);
+            if (c < Integer.MAX_VALUE && c < bestCost) {
+                bestCost = c;
+                best = e;
+            }
+            long r = e.routeCostWith(floor);
+            if (r < nearestCost) {
+                nearestCost = r;
+                nearest = e;
+            }
+        }
+        stats.latency.record(System.nanoTime() - start);
+        stats.costEvaluations.add(cars.length);
+        if (best == null && !allCarry(floor, destination, dir)) {
+            best = nearest;
+        }
+        if (best == null) {
+            hallCalls.arrive(floor, dir, people, time, destination);
+            enqueue(floor);
+            return;
+        }
+
+        best.reserve(floor, destination, people);
+        hallCalls.arrive(floor, dir, people, time, destination, best.getId());
+        stats.assigned.increment();
+        log.emit(SimEvent.ASSIGN, best.getId(), floor, people, destination);
+        best.addReq(floor);
+    }
+
+    // закрепляет ли стратегия пассажиров за лифтами при вызове
+    public boolean assignsPassengers() {
+        return strategy.assignsPassengers();
+    }
+
+    /*
+     на этаже появились люди: ставим этаж в очередь, если он ещё никому не назначен
+     */
+    public void callArrived(int floor) {
+        stats.calls.increment();
+        enqueue(floor);
+    }
+
+    private void enqueue(int floor) {
+        if (assignee.compareAndSet(floor, UNASSIGNED, QUEUED)) {
+            pending.offer(floor);
+        }
+    }
+
+    /*
+     лифт elev убрал этаж из своего маршрута (приехал или пропустил)
+     если на этаже ещё кто-то остался - этаж снова идёт на назначение
+     */
+    public void floorServed(int floor, Elevator elev) {
+        if (assignee.compareAndSet(floor, elev.getId(), UNASSIGNED)
+                && hallCalls.unassigned(floor) > 0) {
+            stats.requeued.increment();
+            enqueue(floor);
+        }
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /*
+     назначаем этажи из очереди: для каждого ищем лифт с наименьшей стоимостью
+     если все лифты полны, этаж вернётся в очередь в следующем раунде
+     */
+    public void dispatchPending() {
+        if (batchBudget > 0 && pending.size() > 1) {
+            dispatchBatch();
+        }
+        int rounds = pending.size();
+        Integer next;
+        while (rounds-- > 0 && (next = pending.poll()) != null) {
+            int floor = next;
+            if (hallCalls.unassigned(floor) <= 0) {
+                // пока ждали, людей забрал проходящий лифт (закреплённых везёт свой лифт)
+                assignee.compareAndSet(floor, QUEUED, UNASSIGNED);
+                continue;
+            }
+
+            long start = System.nanoTime();
+            int[] cars = candidates(floor);
+            Elevator bestElevator = null;
+            boolean scanned = false;
+            if (index != null && nearestCars > 0 && cars.length >= INDEX_THRESHOLD) {
+                // большой банк: сначала только ближайшие лифты с местом, едущие к этажу
+                int n = nearest(floor);
+                bestElevator = selectElevator(floor, near, n);
+                stats.costEvaluations.add(n);
+                scanned = n < nearestCars; // набрали меньше k - других лифтов с местом нет
+            }
+            if (bestElevator == null && !scanned) {
+                // маленький банк или у ближайших вызов не взять - смотрим всех
+                bestElevator = selectElevator(floor, cars);
+                stats.costEvaluations.add(cars.length);
+            }
+            stats.latency.record(System.nanoTime() - start);
+            if (bestElevator == null) {
+                if (cars.length > 0) {
+                    pending.offer(floor);
+                }
+                // этаж не обслуживает ни один лифт - вызов так и останется висеть
+                continue;
+            }
+
+            // назначаем
+            assignee.set(floor, bestElevator.getId());
+            stats.assigned.increment();
+            log.emit(SimEvent.ASSIGN, bestElevator.getId(), floor, 0, 0);
+            bestElevator.addReq(floor);
+        }
+    }
+
+    /*
+     совместное назначение: этажи очереди (до MAX_BATCH) и их лифты-кандидаты -
+     матрица стоимостей как в selectElevator, назначение с наименьшей суммой
+     (AssignmentSolver), каждому лифту не больше одного этажа за раз
+     этажи без лифта, а при превышении бюджета - все, возвращаются в очередь
+     в прежнем порядке и назначаются по одному
+     */
+    private void dispatchBatch() {
+        long start = System.nanoTime();
+        DispatchStrategy s = strategy;
+        int[] floors = new int[Math.min(pending.size(), MAX_BATCH)];
+        int rows = 0;
+        Integer next;
+        while (rows < floors.length && (next = pending.poll()) != null) {
+            int floor = next;
+            if (hallCalls.unassigned(floor) <= 0) {
+                assignee.compareAndSet(floor, QUEUED, UNASSIGNED);
+                continue;
+            }
+            floors[rows++] = floor;
+        }
+
+        // кандидаты каждого этажа; в больших банках - только ближайшие с местом (сначала едущие к этажу)
+        int[][] cand = new int[rows][];
+        int[] col = new int[elevators.length];
+        Arrays.fill(col, -1);
+        int[] cars = new int[elevators.length];
+        int cols = 0;
+        for (int r = 0; r < rows; r++) {
+            int floor = floors[r];
+            int[] c = candidates(floor);
+            if (index != null && nearestCars > 0 && c.length >= INDEX_THRESHOLD) {
+                c = Arrays.copyOf(near, nearest(floor));
+            }
+            cand[r] = c;
+            for (int i : c) {
+                if (col[i] < 0) {
+                    col[i] = cols;
+                    cars[cols++] = i;
+                }
+            }
+        }
+
+        long[][] cost = new long[rows][cols];
+        long evaluations = 0;
+        for (int r = 0; r < rows; r++) {
+            Arrays.fill(cost[r], AssignmentSolver.INF);
+            for (int i : cand[r]) {
+                int c = s.cost(elevators[i], floors[r]);
+                if (c != Integer.MAX_VALUE) {
+                    cost[r][col[i]] = c;
+                }
+            }
+            evaluations += cand[r].length;
+        }
+        stats.costEvaluations.add(evaluations);
+
+        int[] res = rows > 1 ? AssignmentSolver.solve(cost, start + batchBudget) : null;
+        long elapsed = System.nanoTime() - start;
+        if (rows > 1) {
+            stats.batches.increment();
+        }
+        if (res == null) {
+            if (rows > 1) {
+                stats.batchFallbacks.increment();
+            }
+            res = new int[rows];
+            Arrays.fill(res, -1);
+        }
+        for (int r = 0; r < rows; r++) {
+            int floor = floors[r];
+            if (res[r] < 0) {
+                pending.offer(floor);
+                continue;
+            }
+            Elevator e = elevators[cars[res[r]]];
+            stats.latency.record(elapsed / rows);
+            assignee.set(floor, e.getId());
+            stats.assigned.increment();
+            log.emit(SimEvent.ASSIGN, e.getId(), floor, 0, 0);
+            e.addReq(floor);
+        }
+    }
+
+    /*
+     лифт с наименьшей стоимостью или null, если взять вызов некому
+     смотрятся только лифты, обслуживающие этаж (свой банк/зона) и едущие оттуда
+     в нужную ждущим сторону
+     при большом числе лифтов стоимости считаются параллельно (fork-join),
+     при равной стоимости выигрывает лифт с меньшим индексом
+     */
+    Elevator selectElevator(int floor, int[] cars) {
+        return selectElevator(floor, cars, cars.length);
+    }
+
+    // то же по первым n лифтам массива cars
+    Elevator selectElevator(int floor, int[] cars, int n) {
+        DispatchStrategy s = strategy;
+        long best;
+        if (n >= parallelThreshold) {
+            // стоимость в старших 32 битах, индекс в младших - минимум без упаковки
+            best = Arrays.stream(cars, 0, n)
+                    .parallel()
+                    .mapToLong(i -> ((long) s.cost(elevators[i], floor) << 32) | i)
+                    .min()
+                    .orElse(Long.MAX_VALUE);
+        } else {
+            best = Long.MAX_VALUE;
+            // ищем лифт с минимальной cost
+            for (int k = 0; k < n; k++) {
+                int i = cars[k];
+                long c = ((long) s.cost(elevators[i], floor) << 32) | i;
+                if (c < best) {
+                    best = c;
+                }
+            }
+        }
+        if (best == Long.MAX_VALUE || (int) (best >>> 32) == Integer.MAX_VALUE) {
+            return null;
+        }
+        return elevators[(int) best];
+    }
+
+    // сброс назначений, все этажи с людьми снова ждут назначения
+    public void reset() {
+        pending.clear();
+        for (int f = 1; f <= hallCalls.floorCount(); f++) {
+            assignee.set(f, UNASSIGNED);
+            if (hallCalls.unassigned(f) > 0) {
+                enqueue(f);
+            }
+        }
+    }
+
+    /*
+     для контрольной точки (см. Checkpoint): кому назначены этажи, очередь
+     на назначение по порядку и счётчики
+     */
+    void writeState(DataOutput out) throws IOException {
+        for (int f = 1; f <= hallCalls.floorCount(); f++) {
+            out.writeInt(assignee.get(f));
+        }
+        Integer[] queued = pending.toArray(new Integer[0]);
+        out.writeInt(queued.length);
+        for (int f : queued) {
+            out.writeInt(f);
+        }
+        stats.writeState(out);
+    }
+
+    void readState(DataInput in) throws IOException {
+        for (int f = 1; f <= hallCalls.floorCount(); f++) {
+            assignee.set(f, in.readInt());
+        }
+        pending.clear();
+        for (int n = in.readInt(); n > 0; n--) {
+            pending.offer(in.readInt());
+        }
+        stats.readState(in);
+    }
+
+    public long getAssignedCount() {
+        return stats.getAssigned();
+    }
+
+    public long getRequeuedCount() {
+        return stats.getRequeued();
+    }
+
+    public DispatcherStats getStats() {
+        return stats;
+    }
+}
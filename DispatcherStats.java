@@ -0,0 +1,100 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ счётчики диспетчера: вызовы, оценки стоимости, назначения и время назначения одного этажа
+ */
+public class DispatcherStats implements DispatcherStatsMBean {
+
+    final LongAdder calls = new LongAdder();
+    final LongAdder costEvaluations = new LongAdder(); // вызовов DispatchStrategy.cost
+    final LongAdder assigned = new LongAdder();
+    final LongAdder requeued = new LongAdder();
+    final LongAdder batches = new LongAdder();        // совместных назначений
+    final LongAdder batchFallbacks = new LongAdder(); // из них не уложились в бюджет
+    final LatencyHistogram latency = new LatencyHistogram(); // нс на выбор лифта
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getCostEvaluations() {
+        return costEvaluations.sum();
+    }
+
+    @Override
+    public long getAssigned() {
+        return assigned.sum();
+    }
+
+    @Override
+    public long getRequeued() {
+        return requeued.sum();
+    }
+
+    @Override
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    @Override
+    public long getBatchFallbacks() {
+        return batchFallbacks.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public long getDispatchLatencyP50Micros() {
+        return latency.percentile(50) / 1000;
+    }
+
+    @Override
+    public long getDispatchLatencyP99Micros() {
+        return latency.percentile(99) / 1000;
+    }
+
+    @Override
+    public long getDispatchLatencyMaxMicros() {
+        return latency.getMax() / 1000;
+    }
+
+    /*
+     счётчики для контрольной точки (см. Checkpoint); время выбора лифта - реальное,
+     к прогону не относится и не сохраняется
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeLong(calls.sum());
+        out.writeLong(costEvaluations.sum());
+        out.writeLong(assigned.sum());
+        out.writeLong(requeued.sum());
+        out.writeLong(batches.sum());
+        out.writeLong(batchFallbacks.sum());
+    }
+
+    void readState(DataInput in) throws IOException {
+        reset();
+        calls.add(in.readLong());
+        costEvaluations.add(in.readLong());
+        assigned.add(in.readLong());
+        requeued.add(in.readLong());
+        batches.add(in.readLong());
+        batchFallbacks.add(in.readLong());
+    }
+
+    public void reset() {
+        calls.reset();
+        costEvaluations.reset();
+        assigned.reset();
+        requeued.reset();
+        batches.reset();
+        batchFallbacks.reset();
+        latency.reset();
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ счётчики диспетчера, видимые через JMX
+ */
+public interface DispatcherStatsMBean {
+
+    // монотонный счётчик; скорость считает потребитель по двум чтениям
+    long getCalls();
+
+    long getCostEvaluations();
+
+    long getAssigned();
+
+    long getRequeued();
+
+    long getBatches();
+
+    long getBatchFallbacks();
+
+    long getDispatchLatencyP50Micros();
+
+    long getDispatchLatencyP99Micros();
+
+    long getDispatchLatencyMaxMicros();
+}
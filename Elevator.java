@@ -1,5 +1,9 @@
-import java.util.Comparator;
-import java.util.TreeSet;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Predicate;
 
 /**
  описывает логику работы одного лифт
@@ -14,8 +18,8 @@ public class Elevator implements Runnable {
     }
 
 
-    private final int[] requests;     //  число людей, ожидающих на каждом этаже
-    private final boolean[] running;  // общий массив-флаг
+    private final Building building;          // здание, которому принадлежит лифт
+    private final HallCallRegistry hallCalls; // сколько людей ждёт на каждом этаже
 
     public int currFloor = 1; // текущий этаж лифта
     public ElevSt state = ElevSt.WAITING; // состояние лифта 
@@ -23,38 +27,287 @@ public class Elevator implements Runnable {
     public int capacity;         // грузоподъёмность
     public int currLoad = 0;  // сколько людей внутри
 
+    // пассажиры в кабине (только учтённые поимённо, см. HallCallRegistry.arrive)
+    private final ArrayDeque<Passenger> riders = new ArrayDeque<>();
+    // этажи, где выходят пассажиры кабины и закреплённые за лифтом
+    public final StopSet dropStops;
+    // мест обещано пассажирам, которых диспетчер закрепил за лифтом, но они ещё не сели
+    public int reserved = 0;
+    // сколько раз открывались двери для посадки или высадки
+    private long doorOpenings = 0;
+    // берём ли пассажира с текущего этажа (довезём до назначения или до пересадки)
+    private final Predicate<Passenger> carries = p -> legFor(p.destination, currFloor) > 0;
+
     // наборы этажей, куда нужно ехать вверх/вниз
-    public TreeSet<Integer> upReq   = new TreeSet<>();
-    public TreeSet<Integer> downReq = new TreeSet<>(Comparator.reverseOrder());
+    public final StopSet upReq;
+    public final StopSet downReq;
 
     // номер лифта
     private final int elevId;
 
+    // обслуживаемые этажи (null - все) и домашний этаж (стоянка и высадка)
+    private StopSet servedFloors;
+    private int homeFloor = Building.LOBBY;
+    // обслуживаемые этажи, где можно пересесть на лифт другого банка
+    private StopSet transferFloors;
+    // где стоять без заявок (по умолчанию - домашний этаж)
+    private ParkingPolicy parking = ParkingPolicy.HOME;
+
+    // диспетчер, которому сообщаем об обслуженных этажах (может не быть)
+    private Dispatcher dispatcher;
+    // индекс лифтов по этажам у диспетчера и номер лифта в нём
+    private CarIndex index;
+    private int slot;
+
+    // журнал событий (по умолчанию выключен)
+    private EventSink log = EventSink.NOOP;
+    // куда откладывать сообщения диспетчеру во время шага (режим PHASED), null - сразу
+    private StepOutbox outbox;
+
+    // метрики ожидания и поездки (может не быть)
+    private PassengerMetrics metrics;
+
+    // счётчики лифта (JMX, /metrics)
+    private final ElevatorStats stats = new ElevatorStats();
+
     /**
     // конструктор лифта
     @param elevId // номер лифта (для логов)
     @param capacity // грузоподъёмность
-    @param requests // ссылка на общий массив заявок
-    @param running // ссылка на флаг работы
+    @param building // здание (реестр вызовов с этажей, число этажей)
      */
-    public Elevator(int elevId, int capacity, int[] requests, boolean[] running) {
+    public Elevator(int elevId, int capacity, Building building) {
         this.elevId = elevId;
         this.capacity   = capacity;
-        this.requests   = requests;
-        this.running    = running;
+        this.building   = building;
+        this.hallCalls  = building.getHallCalls();
+        this.upReq      = new BitStopSet(hallCalls.floorCount() + 1);
+        this.downReq    = new BitStopSet(hallCalls.floorCount() + 1);
+        this.dropStops  = new BitStopSet(hallCalls.floorCount() + 1);
+    }
+
+    public int getId() {
+        return elevId;
+    }
+
+    public Building getBuilding() {
+        return building;
+    }
+
+    /*
+     лифт банка: ездит только по этажам served, стоит и высаживает на этаже home
+     (набор served не меняется после настройки и может быть общим у всего банка)
+     */
+    void configure(StopSet served, int home) {
+        this.servedFloors = served;
+        this.homeFloor = home;
+        placeAt(home);
     }
 
+    public boolean serves(int floor) {
+        return servedFloors == null ? floor >= 1 && floor <= hallCalls.floorCount() : servedFloors.contains(floor);
+    }
+
+    // есть ли обслуживаемые этажи выше (ниже) этажа floor
+    public boolean servesAbove(int floor) {
+        return servedFloors == null ? floor < hallCalls.floorCount() : servedFloors.max() > floor;
+    }
+
+    public boolean servesBelow(int floor) {
+        return servedFloors == null ? floor > 1 : servedFloors.min() < floor;
+    }
+
+    public int getHomeFloor() {
+        return homeFloor;
+    }
+
+    // обслуживаемые этажи (null - все), общие у лифтов одного банка
+    StopSet getServedFloors() {
+        return servedFloors;
+    }
+
+    public void setParkingPolicy(ParkingPolicy parking) {
+        this.parking = parking;
+    }
+
+    /*
+     куда ехать без заявок: с людьми - домой (там они выходят),
+     пустым - на стоянку, которую выбирает политика
+     */
+    private int restFloor() {
+        if (currLoad > 0) {
+            return homeFloor;
+        }
+        int f = parking.parkingFloor(this);
+        return serves(f) ? f : homeFloor;
+    }
+
+    void setTransferFloors(StopSet transferFloors) {
+        this.transferFloors = transferFloors;
+    }
+
+    StopSet getTransferFloors() {
+        return transferFloors;
+    }
+
+    /*
+     где пассажир с этажа floor, едущий на destination, выйдет из этого лифта:
+     на самом этаже назначения, если лифт туда ходит, иначе на ближайшей к нему
+     пересадке по пути; если по пути пересесть негде - на домашнем этаже
+     (лобби или скай-лобби, оттуда есть лифты в другие зоны), но с этажа пересадки
+     назад не везём - там ждут лифт другого банка
+     @return этаж выхода или -1, если везти пассажира некуда
+     */
+    public int legFor(int destination, int floor) {
+        if (serves(destination)) {
+            return destination;
+        }
+        if (transferFloors != null) {
+            if (destination > floor) {
+                int t = transferFloors.prev(destination);
+                if (t > floor) {
+                    return t;
+                }
+            } else {
+                int t = transferFloors.next(destination);
+                if (t > 0 && t < floor) {
+                    return t;
+                }
+            }
+        }
+        boolean hub = transferFloors != null && transferFloors.contains(floor);
+        return homeFloor != floor && !hub && serves(floor) ? homeFloor : -1;
+    }
+
+    // этаж уже есть в маршруте лифта (остановка за людьми, высадка или возврат домой)
+    public synchronized boolean stopsAt(int floor) {
+        return floor == homeFloor || upReq.contains(floor) || downReq.contains(floor) || dropStops.contains(floor);
+    }
+
+    /*
+     диспетчер закрепил за лифтом people пассажиров с этажа origin на destination:
+     места держатся до посадки, этаж выхода сразу попадает в остановки
+     */
+    public synchronized void reserve(int origin, int destination, int people) {
+        reserved += people;
+        int leg = legFor(destination, origin);
+        if (leg > 0 && leg != homeFloor) {
+            dropStops.add(leg);
+        }
+    }
+
+    public long getDoorOpenings() {
+        return doorOpenings;
+    }
+
+    public void setDispatcher(Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    synchronized void setCarIndex(CarIndex index, int slot) {
+        this.index = index;
+        this.slot = slot;
+        index.move(slot, currFloor);
+    }
+
+    // поставить лифт на этаж floor (подготовка замеров и тестовых состояний)
+    synchronized void placeAt(int floor) {
+        currFloor = floor;
+        if (index != null) {
+            index.move(slot, floor);
+        }
+    }
+
+    /*
+     вернуть лифт в начальное состояние: пустой, без маршрута, на домашнем этаже,
+     счётчики обнулены (новый запуск на том же здании, подготовка замеров)
+     */
+    synchronized void reset() {
+        riders.clear();
+        currLoad = 0;
+        reserved = 0;
+        doorOpenings = 0;
+        upReq.clear();
+        downReq.clear();
+        dropStops.clear();
+        state = ElevSt.WAITING;
+        stats.reset();
+        placeAt(homeFloor);
+    }
+
+    public void setEventSink(EventSink log) {
+        this.log = log;
+    }
+
+    /*
+     состояние лифта для контрольной точки (см. Checkpoint): положение, загрузка,
+     маршрут, пассажиры в кабине и счётчики; зона и грузоподъёмность - в описании здания
+     */
+    synchronized void writeState(DataOutput out) throws IOException {
+        out.writeInt(currFloor);
+        out.writeByte(state.ordinal());
+        out.writeInt(currLoad);
+        out.writeInt(reserved);
+        out.writeLong(doorOpenings);
+        Checkpoint.writeFloors(out, upReq);
+        Checkpoint.writeFloors(out, downReq);
+        Checkpoint.writeFloors(out, dropStops);
+        out.writeInt(riders.size());
+        for (Passenger p : riders) {
+            p.write(out);
+        }
+        stats.writeState(out);
+    }
+
+    synchronized void readState(DataInput in) throws IOException {
+        placeAt(in.readInt());
+        state = ElevSt.values()[in.readByte()];
+        currLoad = in.readInt();
+        reserved = in.readInt();
+        doorOpenings = in.readLong();
+        Checkpoint.readFloors(in, upReq);
+        Checkpoint.readFloors(in, downReq);
+        Checkpoint.readFloors(in, dropStops);
+        riders.clear();
+        for (int n = in.readInt(); n > 0; n--) {
+            riders.add(Passenger.read(in));
+        }
+        stats.readState(in);
+    }
+
+    public void setMetrics(PassengerMetrics metrics) {
+        this.metrics = metrics;
+        stats.setClock(metrics == null ? null : metrics::now);
+    }
+
+    public ElevatorStats getStats() {
+        return stats;
+    }
+
+    // этаж убран из маршрута - сообщаем диспетчеру
+    private void served(int floor) {
+        if (outbox != null) {
+            outbox.served(floor);
+        } else if (dispatcher != null) {
+            dispatcher.floorServed(floor, this);
+        }
+    }
+
+    /*
+     собственный цикл лифта (режим с потоком на лифт)
+     останавливается прерыванием потока
+     */
     @Override
     public void run() {
-        while (running[0]) {
+        while (!Thread.currentThread().isInterrupted()) {
             step();
             try {
-                Thread.sleep(100); 
+                Thread.sleep(SimulationEngine.STEP_TIME); 
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
         }
-        System.out.println("[Лифт " + elevId + "] Остановлен.");
+        log.emit(SimEvent.STOPPED, elevId, currFloor, 0, 0);
     }
 
     /*
@@ -63,7 +316,7 @@ public class Elevator implements Runnable {
       если уже движется, добавляем этаж в соответствующий набор
      */
     public synchronized void addReq(int floor) {
-        System.out.println("[Лифт " + elevId + "] Получен запрос на этаж " + floor);
+        log.emit(SimEvent.REQUEST, elevId, floor, 0, 0);
 
         if (state == ElevSt.WAITING) {
             if (floor > currFloor) {
@@ -74,7 +327,9 @@ public class Elevator implements Runnable {
                 downReq.add(floor);
             } else {
                 pickupP(floor);
+                served(floor);
             }
+            stats.account(state);
             return;
         }
 
@@ -96,280 +351,451 @@ public class Elevator implements Runnable {
     /*
       Оценка "стоимости" для назначения лифту этажа floor
       (чем больше стоимость, тем менее выгодно лифту брать этот запрос)
+      считается стратегией по умолчанию (ближайший лифт)
      */
-    public synchronized int addCostReq(int floor) {
-        // Если лифт уже полон
-        if (currLoad >= capacity) {
-            return Integer.MAX_VALUE;
-        }
-
-        ElevSt oldState = state;
-        int oldFloor = currFloor;
-        int oldLoad  = currLoad;
-
-        TreeSet<Integer> oldUp   = new TreeSet<>(upReq);
-        TreeSet<Integer> oldDown = new TreeSet<>(downReq);
-
-        addReqTemp(floor);
-        int newCost = estRouteCost();
-
-        state = oldState;
-        currFloor = oldFloor;
-        currLoad = oldLoad;
-        upReq = oldUp;
-        downReq = oldDown;
-
-        double directionFactor = 1.0;
-        if (floor > oldFloor) {
-            if (oldState == ElevSt.MOVING_UP || oldState == ElevSt.WAITING) {
-                directionFactor -= 0.1;
-            } else {
-                directionFactor += 0.2;
-            }
-        } else if (floor < oldFloor) {
-            if (oldState == ElevSt.MOVING_DOWN || oldState == ElevSt.WAITING) {
-                directionFactor -= 0.1;
-            } else {
-                directionFactor += 0.2;
-            }
-        } else {
-            directionFactor -= 0.3; 
-        }
-
-        // чем больше людей уже внутри, тем "дороже"
-        double loadFactor = 1.0 + ((double)oldLoad / (double)capacity)*0.5;
-
-        return (int)(newCost * directionFactor * loadFactor);
+    public int addCostReq(int floor) {
+        return NearestCarStrategy.DEFAULT.cost(this, floor);
     }
 
     /*
-     добавляем запрос, чтобы оценить стоимость (cost)
+      длина маршрута, если добавить этаж floor (как в addReq)
+      состояние лифта не меняется и ничего не выделяется: маршрут считается
+      по краям наборов upReq/downReq с учётом гипотетического этажа floor
      */
-    private void addReqTemp(int floor) {
+    public synchronized int routeCostWith(int floor) {
+        int upMin = upReq.min();
+        int upMax = upReq.max();
+        int downMax = downReq.max();
+        int downMin = downReq.min();
+
+        // куда попал бы этаж floor (как в addReq)
+        ElevSt newState = state;
+        boolean toUp;
+        boolean added = true;
         if (state == ElevSt.WAITING) {
             if (floor > currFloor) {
-                state = ElevSt.MOVING_UP;
-                upReq.add(floor);
+                newState = ElevSt.MOVING_UP;
+                toUp = true;
             } else if (floor < currFloor) {
-                state = ElevSt.MOVING_DOWN;
-                downReq.add(floor);
-            }
-            return;
-        }
-
-        if (state == ElevSt.MOVING_UP) {
-            if (floor >= currFloor) {
-                upReq.add(floor);
+                newState = ElevSt.MOVING_DOWN;
+                toUp = false;
             } else {
-                downReq.add(floor);
+                // лифт уже здесь, маршрут не меняется
+                toUp = false;
+                added = false;
             }
+        } else if (state == ElevSt.MOVING_UP) {
+            toUp = floor >= currFloor;
         } else {
-            if (floor <= currFloor) {
-                downReq.add(floor);
+            toUp = floor > currFloor;
+        }
+
+        if (added) {
+            if (toUp) {
+                upMin = upMin < 0 ? floor : Math.min(upMin, floor);
+                upMax = Math.max(upMax, floor);
             } else {
-                upReq.add(floor);
+                downMin = downMin < 0 ? floor : Math.min(downMin, floor);
+                downMax = Math.max(downMax, floor);
             }
         }
+        return routeCost(newState, currFloor, upMin, upMax, downMin, downMax, homeFloor);
     }
 
 
      //Оценка маршрута по шагам
 
     public synchronized int estRouteCost() {
+        int upMin = upReq.min();
+        int upMax = upReq.max();
+        int downMax = downReq.max();
+        int downMin = downReq.min();
+        return routeCost(state, currFloor, upMin, upMax, downMin, downMax, homeFloor);
+    }
+
+    /*
+     длина маршрута: если лифт стоит или движется вверх, обслужим сначала upReq
+     по возрастанию, потом downReq по убыванию; иначе сначала downReq, заезд на
+     домашний этаж home, потом upReq; в конце возврат на home
+     проход по отсортированному набору от pos = |край - pos| + (max - min),
+     поэтому достаточно минимума и максимума каждого набора (-1, если пуст)
+     */
+    static int routeCost(ElevSt state, int pos, int upMin, int upMax, int downMin, int downMax, int home) {
         int cost = 0;
-        int pos  = currFloor;
-        // если лифт стоит или движется вверх, обслужим сначала upReq, потом downReq
         if (state == ElevSt.WAITING || state == ElevSt.MOVING_UP) {
-            for (int f : upReq) {
-                cost += Math.abs(f - pos);
-                pos = f;
+            if (upMin > 0) {
+                cost += Math.abs(upMin - pos) + (upMax - upMin);
+                pos = upMax;
             }
-            for (int f : downReq) {
-                cost += Math.abs(f - pos);
-                pos = f;
+            if (downMin > 0) {
+                cost += Math.abs(downMax - pos) + (downMax - downMin);
+                pos = downMin;
             }
         } else {
             // иначе лифт движется вниз
-            for (int f : downReq) {
-                cost += Math.abs(f - pos);
-                pos = f;
+            if (downMin > 0) {
+                cost += Math.abs(downMax - pos) + (downMax - downMin);
+                pos = downMin;
             }
-            cost += Math.abs(pos - 1);
-            pos = 1;
-            for (int f : upReq) {
-                cost += Math.abs(f - pos);
-                pos = f;
+            cost += Math.abs(pos - home);
+            pos = home;
+            if (upMin > 0) {
+                cost += Math.abs(upMin - pos) + (upMax - upMin);
+                pos = upMax;
             }
         }
-        cost += Math.abs(pos - 1);
+        cost += Math.abs(pos - home);
         return cost;
     }
 
-    void step() {
+    // лифт стоит на стоянке без заявок
+    public synchronized boolean isIdle() {
+        return upReq.isEmpty() && downReq.isEmpty()
+                && state == ElevSt.WAITING && currFloor == restFloor();
+    }
+
+    /*
+     шаг с отложенными действиями (режим PHASED, см. PhasedStepper): события журнала
+     и сообщения диспетчеру копятся в out, реестр вызовов трогается только
+     на этажах footprint()
+     */
+    void step(StepOutbox out) {
         synchronized (this) {
-            // если нет запросов
-            if (upReq.isEmpty() && downReq.isEmpty()) {
-                if (currFloor != 1) {
-                    moveToFloor1();
-                } else {
-                    state = ElevSt.WAITING;
-                }
-                return;
+            EventSink direct = log;
+            log = out;
+            outbox = out;
+            try {
+                step();
+            } finally {
+                log = direct;
+                outbox = null;
             }
+        }
+    }
 
-            // если лифт должен ехать наверх
-            if ((state == ElevSt.WAITING && !upReq.isEmpty()) 
-                 || state == ElevSt.MOVING_UP) {
+    /*
+     этажи, где следующий шаг может прочитать или изменить реестр вызовов:
+     до двух этажей в каждую сторону (приезд и сразу шаг к дому) и ближайшие цели
+     маршрута (проверка, не пора ли их пропустить); into - не меньше 7 элементов
+     */
+    synchronized int footprint(int[] into) {
+        int n = 0;
+        int top = Math.min(hallCalls.floorCount(), currFloor + 2);
+        for (int f = Math.max(1, currFloor - 2); f <= top; f++) {
+            into[n++] = f;
+        }
+        if (!upReq.isEmpty()) {
+            into[n++] = upReq.min();
+        }
+        if (!downReq.isEmpty()) {
+            into[n++] = downReq.max();
+        }
+        return n;
+    }
 
-                state = ElevSt.MOVING_UP;
+    void step() {
+        synchronized (this) {
+            try {
+                // если нет запросов
+                if (upReq.isEmpty() && downReq.isEmpty()) {
+                    if (currFloor != restFloor()) {
+                        moveRest();
+                    } else {
+                        state = ElevSt.WAITING;
+                        stats.idleTicks.increment();
+                    }
+                    return;
+                }
 
-                if (!upReq.isEmpty()) {
-                    Integer target = upReq.first();
+                // если лифт должен ехать наверх
+                if ((state == ElevSt.WAITING && !upReq.isEmpty()) 
+                     || state == ElevSt.MOVING_UP) {
 
-                    // проверка, остались ли люди на этом этаже
-                    if (requests[target - 2] == 0) {
-                        upReq.remove(target);
-                        System.out.println("[Лифт " + elevId + "] Этаж " + target
-                                + " пуст — пропускаем");
+                    state = ElevSt.MOVING_UP;
 
-                        if (upReq.isEmpty() && downReq.isEmpty()) {
-                            moveToFloor1();
-                            return;
-                        }
-                    } else {
-                        // едет к target
-                        moveTow(target);
-                        System.out.println("[Лифт " + elevId + "] Движение к этажу " 
-                                + target + " (текущий " + currFloor + ")");
+                    if (!upReq.isEmpty()) {
+                        int target = upReq.min();
 
-                        if (currFloor == target) {
+                        // проверка, остались ли люди на этом этаже или выходящие
+                        if (hallCalls.waiting(target) == 0 && !dropStops.contains(target)) {
                             upReq.remove(target);
-                            pickupP(target);
-                            System.out.println("[Лифт " + elevId + "] Приехали на этаж " + target
-                                    + ", загрузка=" + currLoad);
-
-                            if (upReq.isEmpty() && !downReq.isEmpty()) {
-                                state = ElevSt.MOVING_DOWN;
-                            } else if (upReq.isEmpty() && downReq.isEmpty()) {
-                                moveToFloor1();
+                            served(target);
+                            log.emit(SimEvent.SKIP, elevId, target, 0, 0);
+
+                            if (upReq.isEmpty() && downReq.isEmpty()) {
+                                moveRest();
+                                return;
+                            }
+                        } else {
+                            // едет к target
+                            moveTow(target);
+                            log.emit(SimEvent.MOVE, elevId, target, currFloor, 0);
+
+                            if (currFloor == target) {
+                                upReq.remove(target);
+                                pickupP(target);
+                                served(target);
+                                log.emit(SimEvent.ARRIVE, elevId, target, currLoad, 0);
+
+                                if (upReq.isEmpty() && !downReq.isEmpty()) {
+                                    state = ElevSt.MOVING_DOWN;
+                                } else if (upReq.isEmpty() && downReq.isEmpty()) {
+                                    moveRest();
+                                }
                             }
                         }
-                    }
-                } else {
-                    if (!downReq.isEmpty()) {
-                        state = ElevSt.MOVING_DOWN;
                     } else {
-                        moveToFloor1();
+                        if (!downReq.isEmpty()) {
+                            state = ElevSt.MOVING_DOWN;
+                        } else {
+                            moveRest();
+                        }
                     }
-                }
-            } 
-            // если лифт должен ехать вниз
-            else if ((state == ElevSt.WAITING && !downReq.isEmpty()) 
-                      || state == ElevSt.MOVING_DOWN) {
+                } 
+                // если лифт должен ехать вниз
+                else if ((state == ElevSt.WAITING && !downReq.isEmpty()) 
+                          || state == ElevSt.MOVING_DOWN) {
 
-                state = ElevSt.MOVING_DOWN;
-
-                if (!downReq.isEmpty()) {
-                    Integer target = downReq.first();
-                    if (requests[target - 2] == 0) {
-                        downReq.remove(target);
-                        System.out.println("[Лифт " + elevId + "] Этаж " + target
-                                + " уже пуст — пропускаем!");
+                    state = ElevSt.MOVING_DOWN;
 
-                        if (upReq.isEmpty() && downReq.isEmpty()) {
-                            moveToFloor1();
-                            return;
-                        }
-                    } else {
-                        // едет вниз
-                        moveTow(target);
-                        System.out.println("[Лифт " + elevId + "] Движение к этажу " 
-                                + target + " (текущий " + currFloor + ")");
-
-                        if (currFloor == target) {
+                    if (!downReq.isEmpty()) {
+                        int target = downReq.max();
+                        if (hallCalls.waiting(target) == 0 && !dropStops.contains(target)) {
                             downReq.remove(target);
-                            pickupP(target);
-                            System.out.println("[Лифт " + elevId + "] Приехали на этаж " + target
-                                    + ", загрузка=" + currLoad);
-
-                            if (downReq.isEmpty() && !upReq.isEmpty()) {
-                                moveToFloor1();
-                            } else if (downReq.isEmpty() && upReq.isEmpty()) {
-                                moveToFloor1();
+                            served(target);
+                            log.emit(SimEvent.SKIP, elevId, target, 0, 0);
+
+                            if (upReq.isEmpty() && downReq.isEmpty()) {
+                                moveRest();
+                                return;
+                            }
+                        } else {
+                            // едет вниз
+                            moveTow(target);
+                            log.emit(SimEvent.MOVE, elevId, target, currFloor, 0);
+
+                            if (currFloor == target) {
+                                downReq.remove(target);
+                                pickupP(target);
+                                served(target);
+                                log.emit(SimEvent.ARRIVE, elevId, target, currLoad, 0);
+
+                                if (downReq.isEmpty() && !upReq.isEmpty()) {
+                                    moveHome();
+                                } else if (downReq.isEmpty() && upReq.isEmpty()) {
+                                    moveRest();
+                                }
                             }
                         }
-                    }
-                } else {
-                    if (!upReq.isEmpty()) {
-                        moveToFloor1();
                     } else {
-                        moveToFloor1();
+                        if (!upReq.isEmpty()) {
+                            moveHome();
+                        } else {
+                            moveRest();
+                        }
                     }
                 }
-            }
 
-            // если двигаемся вниз и текущий этаж > 1, пробуем подобрать людей "по пути"
-            if (state == ElevSt.MOVING_DOWN && currFloor > 1) {
-                pickupP(currFloor);
+                // если двигаемся вниз и текущий этаж выше домашнего, пробуем подобрать людей "по пути"
+                // (только едущих вниз) и высадить тех, кому сюда
+                if (state == ElevSt.MOVING_DOWN && currFloor > homeFloor && stop(currFloor)) {
+                    board(currFloor, HallCallRegistry.Direction.DOWN);
+                }
+            } finally {
+                // время в состоянии считается с конца шага
+                stats.account(state);
             }
         }
     }
 
-    // лифт возвращается на первый этаж, если нет заявок
+    // заявок нет: домой или на стоянку (по этажу за шаг)
+    private void moveRest() {
+        int rest = restFloor();
+        if (rest == homeFloor) {
+            moveHome();
+            return;
+        }
+        if (currFloor != rest) {
+            state = rest > currFloor ? ElevSt.MOVING_UP : ElevSt.MOVING_DOWN;
+            moveTow(rest);
+            log.emit(SimEvent.RETURN, elevId, currFloor, 0, 0);
+        }
+        if (currFloor == rest) {
+            state = ElevSt.WAITING;
+        }
+    }
+
+    // лифт возвращается на домашний этаж, если нет заявок
      
-    void moveToFloor1() {
-        if (currFloor > 1) {
+    void moveHome() {
+        if (currFloor > homeFloor) {
             state = ElevSt.MOVING_DOWN;
-            currFloor--;
-            System.out.println("[Лифт " + elevId + "] возвращается к этажу " + currFloor);
-            if (currFloor == 1) {
-                System.out.println("[Лифт " + elevId + "] 1 этаж: выгрузка");
-                currLoad = 0;
+            moveBy(-1);
+            log.emit(SimEvent.RETURN, elevId, currFloor, 0, 0);
+            if (currFloor == homeFloor) {
+                unload();
                 state = ElevSt.WAITING;
             }
-        } else if (currFloor < 1) {
+        } else if (currFloor < homeFloor) {
             state = ElevSt.MOVING_UP;
-            currFloor++;
-            System.out.println("[Лифт " + elevId + "] возвращается к этажу " + currFloor);
-            if (currFloor == 1) {
-                System.out.println("[Лифт " + elevId + "] 1 этаж: выгрузка");
-                currLoad = 0;
+            moveBy(1);
+            log.emit(SimEvent.RETURN, elevId, currFloor, 0, 0);
+            if (currFloor == homeFloor) {
+                unload();
                 state = ElevSt.WAITING;
             }
         } else {
-            System.out.println("[Лифт " + elevId + "] уже 1 этаж, выгрузка");
-            currLoad = 0;
+            unload();
             state = ElevSt.WAITING;
         }
     }
 
 
+    // все, кому сюда, выходят на домашнем этаже (и люди, не учтённые поимённо)
+    private void unload() {
+        alight(currFloor);
+    }
+
+    /*
+     высадка на этаже floor пассажиров, для которых он этаж выхода; если это не их
+     этаж назначения (скай-лобби, пересадка), они снова встают в очередь на этаже
+     */
+    private void alight(int floor) {
+        int out = 0;
+        boolean transferred = false;
+        for (Iterator<Passenger> it = riders.iterator(); it.hasNext(); ) {
+            Passenger p = it.next();
+            if (p.leg != floor) {
+                continue;
+            }
+            it.remove();
+            out++;
+            if (p.destination == floor) {
+                if (metrics != null) {
+                    metrics.delivered(p);
+                }
+            } else {
+                hallCalls.transfer(p, floor);
+                transferred = true;
+            }
+        }
+        boolean home = floor == homeFloor;
+        if (home) {
+            // неучтённые поимённо едут до домашнего этажа
+            out += currLoad - out - riders.size();
+        }
+        dropStops.remove(floor);
+        if (out > 0 || home) {
+            currLoad -= out;
+            log.emit(SimEvent.UNLOAD, elevId, floor, out, currLoad);
+        }
+        if (out > 0) {
+            stats.stops.increment();
+            doorOpenings++;
+        }
+        if (transferred) {
+            if (outbox != null) {
+                outbox.callArrived(floor);
+            } else if (dispatcher != null) {
+                dispatcher.callArrived(floor);
+            }
+        }
+    }
+
+    // на этаж выше (d = 1) или ниже (d = -1); индекс лифтов диспетчера узнаёт сразу
+    private void moveBy(int d) {
+        currFloor += d;
+        stats.floorsTravelled.increment();
+        if (index != null) {
+            index.move(slot, currFloor);
+        }
+    }
+
     void moveTow(int floor) {
         if (floor > currFloor) {
-            currFloor++;
+            moveBy(1);
         } else if (floor < currFloor) {
-            currFloor--;
+            moveBy(-1);
         }
     }
 
 
+    /*
+     остановка на этаже floor: сначала выходят приехавшие, потом садятся ждущие;
+     первыми берём едущих в сторону движения лифта
+     */
     void pickupP(int floor) {
-        if (floor == 1) {
-            System.out.println("[Лифт " + elevId + "] лифт пуст, все вышли");
-            currLoad = 0;
+        if (!stop(floor)) {
             return;
         }
-        int idx = floor - 2;
-        if (idx >= 0 && idx < requests.length) {
-            int waiting = requests[idx];
-            if (waiting > 0 && currLoad < capacity) {
-                int canTake = Math.min(capacity - currLoad, waiting);
-                requests[idx] -= canTake;
-                currLoad += canTake;
-                System.out.println("[Лифт " + elevId + "] подобрал " 
-                        + canTake + " чел. на этаже " + floor 
-                        + "; загрузка=" + currLoad);
+        if (state == ElevSt.MOVING_UP) {
+            board(floor, HallCallRegistry.Direction.UP);
+            board(floor, HallCallRegistry.Direction.DOWN);
+        } else {
+            board(floor, HallCallRegistry.Direction.DOWN);
+            board(floor, HallCallRegistry.Direction.UP);
+        }
+        if (reserved > 0 && hallCalls.hasAssigned(floor, elevId)) {
+            // мест не хватило своим - вернёмся за ними следующим проходом
+            if (state == ElevSt.MOVING_DOWN) {
+                upReq.add(floor);
+            } else {
+                downReq.add(floor);
+            }
+        }
+    }
+
+    // высадка на этаже floor; false - лифт здесь не останавливается
+    private boolean stop(int floor) {
+        if (floor == homeFloor) {
+            unload();
+        } else {
+            alight(floor);
+        }
+        // экспресс проезжает этаж без остановки
+        return servedFloors == null || servedFloors.contains(floor);
+    }
+
+    /*
+     атомарно забираем столько ждущих направления dir, сколько влезет
+     каждому пассажиру назначается этаж выхода, он добавляется в маршрут
+     */
+    private void board(int floor, HallCallRegistry.Direction dir) {
+        if (currLoad >= capacity) {
+            return;
+        }
+        int before = riders.size();
+        int canTake = hallCalls.claimFor(floor, dir, elevId, capacity - currLoad, riders, carries);
+        if (canTake == 0) {
+            return;
+        }
+        int i = 0;
+        for (Passenger p : riders) {
+            if (i++ < before) {
+                continue;
+            }
+            if (metrics != null) {
+                metrics.boarded(p);
+            }
+            if (p.assigned == elevId) {
+                reserved--;
+            }
+            p.leg = legFor(p.destination, floor);
+            if (p.leg == homeFloor) {
+                // домой лифт вернётся и так (маршрут всегда кончается там)
+                continue;
+            }
+            dropStops.add(p.leg);
+            if (p.leg > currFloor) {
+                upReq.add(p.leg);
+            } else {
+                downReq.add(p.leg);
             }
         }
+        stats.stops.increment();
+        stats.pickups.add(canTake);
+        doorOpenings++;
+        currLoad += canTake;
+        log.emit(SimEvent.PICKUP, elevId, floor, canTake, currLoad);
     }
 }
@@ -1,8 +1,8 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 
 public class ElevatorRequestSimulation extends JFrame {
@@ -16,38 +16,50 @@ public class ElevatorRequestSimulation extends JFrame {
     public static final int peoplePerRequestMax = 5;  // максимум людей в заявке
     public static final int REFRESH_DELAY = 200;      // задержка перерисовки (мс)
 
-    // общий массив, сколько людей на каждом этаже
-    public static int[] requests = new int[floorCount - 1];
-
-    // массив-флаг для остановки/запуска симуляции
-    public static boolean[] running = new boolean[]{ false };
-
-    // лифты
-    Elevator[] elevators = new Elevator[elevatorCount];
+    // здание окна: реестр вызовов, лифты и флаг работы (у каждого окна своё)
+    final Building building = Building.createDefault();
+    final HallCallRegistry hallCalls = building.getHallCalls();
+    final Elevator[] elevators = building.getElevators();
 
     // компоненты GUI
     JButton startButton;
     JButton stopButton;
     BuildingPanel buildingPanel;
+    // перерисовка по таймеру, независимо от темпа симуляции
+    Timer repaintTimer;
 
-    // потоки
+    // движок и его поток
+    SimulationEngine engine;
     Thread simulationThread;
-    List<Thread> elevatorThreads = new ArrayList<>();
 
-    Random rand = new Random();
+    // как шагают лифты, и потоки лифтов для режимов с потоками
+    final ExecutionMode mode;
+    ElevatorRunner runner;
+    MetricsExporter exporter;
+
+    // каталог двоичного журнала: вместо симуляции проигрывается записанный прогон
+    final Path replayDir;
+
+    // зерно генератора заявок: -Delevator.seed=N повторяет прогон (печатается при запуске)
+    final long seed = Long.getLong("elevator.seed", System.nanoTime());
 
-    public ElevatorRequestSimulation() {
-        super("Симуляция работы лифтов");
+    public ElevatorRequestSimulation(ExecutionMode mode) {
+        this(mode, null);
+    }
+
+    /**
+    @param mode // как шагают лифты
+    @param replayDir // каталог журнала для проигрывания (null - обычная симуляция)
+     */
+    public ElevatorRequestSimulation(ExecutionMode mode, Path replayDir) {
+        super(replayDir == null ? "Симуляция работы лифтов" : "Проигрывание журнала: " + replayDir);
+        this.mode = mode;
+        this.replayDir = replayDir;
 
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(600, 800);
         setLayout(new BorderLayout());
 
-        // создание лифтов
-        elevators[0] = new Elevator(1, 5,  requests, running);
-        elevators[1] = new Elevator(2, 5, requests, running);
-        elevators[2] = new Elevator(3, 10, requests, running);
-
         // панель управления
         JPanel controlPanel = new JPanel();
         startButton = new JButton("Запустить симуляцию");
@@ -59,41 +71,69 @@ public class ElevatorRequestSimulation extends JFrame {
         add(controlPanel, BorderLayout.SOUTH);
 
         // панель отрисовки здания
+        // высокое здание не помещается в окно - панель прокручивается
         buildingPanel = new BuildingPanel();
-        add(buildingPanel, BorderLayout.CENTER);
+        add(new JScrollPane(buildingPanel), BorderLayout.CENTER);
+        repaintTimer = new Timer(REFRESH_DELAY, e -> buildingPanel.refresh());
+        repaintTimer.start();
 
         // обработчики кнопок
         startButton.addActionListener(e -> {
-            if (!running[0]) {
-                running[0] = true;
+            if (!building.isRunning()) {
+                building.setRunning(true);
                 startButton.setEnabled(false);
                 stopButton.setEnabled(true);
 
-                // обнуление заявков
-                for (int i = 0; i < requests.length; i++) {
-                    requests[i] = 0;
+                // прошлый прогон мог оставить людей на этажах и в кабинах,
+                // маршруты, брони мест и счётчики лифтов - начинаем с чистого здания
+                building.reset();
+
+                if (replayDir != null) {
+                    startReplay();
+                    return;
                 }
 
-                // запуск потоков лифтов
-                elevatorThreads.clear();
-                for (Elevator elev : elevators) {
-                    Thread t = new Thread(elev);
-                    t.start();
-                    elevatorThreads.add(t);
+                // движок задаёт темп сам (виртуальное время = реальному)
+                // и раз в такт публикует снимок здания, панель рисует только снимки
+                engine = new SimulationEngine(building, seed);
+                engine.setRealtimeFactor(1.0);
+                engine.setMode(mode);
+                engine.setPublishSnapshots(true);
+                engine.setEventSink(new AsyncEventSink(System.out, SimEvent.Level.INFO, engine::now, 1 << 14));
+                engine.addListener(new SimulationEngine.Listener() {
+                    @Override
+                    public void onTick(SimulationEngine eng, long time) {
+                    }
+
+                    @Override
+                    public void onFinish(SimulationEngine eng) {
+                        finished();
+                    }
+                });
+
+                exporter = MetricsExporter.start(engine);
+
+                // запуск потоков лифтов (если лифты шагают не в движке)
+                if (!mode.inEngine()) {
+                    runner = new ElevatorRunner(mode);
+                    runner.start(elevators);
                 }
 
-                // запуск потоков симуляции
-                simulationThread = new Thread(this::simulate);
+                // запуск потока симуляции
+                simulationThread = new Thread(engine::run);
                 simulationThread.start();
 
-                System.out.println("[СИМУЛЯЦИЯ] Симуляция запущена");
+                System.out.println("[СИМУЛЯЦИЯ] Симуляция запущена, зерно=" + seed);
             }
         });
 
         stopButton.addActionListener(e -> {
-            if (running[0]) {
-                running[0] = false;
+            if (building.isRunning()) {
+                building.setRunning(false);
                 stopButton.setEnabled(false);
+                if (replayDir != null) {
+                    simulationThread.interrupt();
+                }
                 System.out.println("[СИМУЛЯЦИЯ] Остановка симуляции");
             }
         });
@@ -103,37 +143,48 @@ public class ElevatorRequestSimulation extends JFrame {
     }
 
     /*
-    цикл генерации заявок и логика заявок для лифтов
+    проигрывание журнала в реальном времени: состояние восстанавливается по событиям
+    и публикуется снимком здания для отрисовки
      */
-    void simulate() {
-        for (int step = 1; step <= simulationSteps && running[0]; step++) {
-            // генерируем новую заявку
-            if (rand.nextDouble() < requestProbability) {
-                int requestFloor = rand.nextInt(floorCount - 1) + 2; 
-                int peopleCount  = peoplePerRequestMin 
-                        + rand.nextInt(peoplePerRequestMax - peoplePerRequestMin + 1);
-
-                synchronized (ElevatorRequestSimulation.class) {
-                    requests[requestFloor - 2] += peopleCount;
-                }
-
-                System.out.println("[СИМ] " + peopleCount 
-                        + " чел. вызвали лифт на этаж " + requestFloor);
-                dispatchRequests();
-            }
-
-            SwingUtilities.invokeLater(buildingPanel::repaint);
-
-            try {
-                Thread.sleep(REFRESH_DELAY);
+    void startReplay() {
+        simulationThread = new Thread(() -> {
+            JournalReplay replay = new JournalReplay(hallCalls);
+            try (JournalReader reader = new JournalReader(replayDir)) {
+                replay.play(reader, 1.0, REFRESH_DELAY, () -> {
+                    building.publish(replay.snapshot(building));
+                });
+                System.out.println("[ЖУРНАЛ] " + replay.report());
             } catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
+                // остановлено кнопкой
+            } catch (IOException ex) {
+                System.out.println("[ЖУРНАЛ] не удалось прочитать " + replayDir + ": " + ex.getMessage());
             }
-        }
+            building.setRunning(false);
+            finished();
+        });
+        simulationThread.start();
+        System.out.println("[СИМУЛЯЦИЯ] Проигрывание журнала " + replayDir);
+    }
 
-        running[0] = false;
+    /*
+    вызывается движком по окончании прогона
+     */
+    void finished() {
+        if (runner != null) {
+            runner.stop();
+            runner = null;
+        }
+        if (exporter != null) {
+            exporter.close();
+            exporter = null;
+        }
+        if (engine != null) {
+            engine.getEventSink().close();
+            System.out.println(engine.getPassengerMetrics().report());
+        }
         System.out.println("[СИМУЛЯЦИЯ] Симуляция завершена");
         SwingUtilities.invokeLater(() -> {
+            buildingPanel.repaint();
             JOptionPane.showMessageDialog(this, 
                 "Симуляция завершена", 
                 "инфо", 
@@ -145,116 +196,131 @@ public class ElevatorRequestSimulation extends JFrame {
     }
 
     /*
-    логика назначения заявок - пробегаем по этажам (сверху вниз) и ищем, где есть люди
-    находим лифт с наименьшей стоимостью (additionalCost), назначаем ему этот этаж
+    отрисовка схемы здания и лифтов
+    рисуются только видимые этажи и лифты, поэтому перерисовка не зависит от высоты здания
+    рисуется последний опубликованный снимок (Building.getSnapshot), мониторы
+    симуляции в EDT не берутся
     */
-    void dispatchRequests() {
-        synchronized (ElevatorRequestSimulation.class) {
-            for (int floor = floorCount; floor >= 2; floor--) {
-                int idx = floor - 2;
-                if (requests[idx] <= 0) continue;
-                int waiting = requests[idx];
-                if (waiting > 0) {
-                    Elevator bestElevator = null;
-                    int bestCost = Integer.MAX_VALUE;
-                    // ищем лифт с минимальной cost
-                    for (Elevator e : elevators) {
-                        synchronized (e) {
-                            int cost = e.addCostReq(floor);
-                            if (cost < bestCost) {
-                                bestCost = cost;
-                                bestElevator = e;
-                            }
-                        }
-                    }
-                    if (bestElevator != null && bestCost != Integer.MAX_VALUE) {
-                        // назначаем
-                        synchronized (bestElevator) {
-                            bestElevator.addReq(floor);
-                        }
-                    }
-                }
+    class BuildingPanel extends JPanel {
+
+        static final int MARGIN = 50;
+        static final int MIN_FLOOR_HEIGHT = 14; // ниже этого этажи не сжимаются, появляется прокрутка
+
+        // снимок, нарисованный последним (читается и пишется только в EDT)
+        private BuildingSnapshot painted;
+
+        // перерисовать, если с прошлого раза вышел новый снимок
+        void refresh() {
+            if (building.getSnapshot() != painted) {
+                repaint();
             }
         }
-    }
 
-    /*
-    отрисовка схемы здания и лифтов
-    */
-    class BuildingPanel extends JPanel {
+        @Override
+        public Dimension getPreferredSize() {
+            Container parent = getParent();
+            int visible = parent != null ? parent.getHeight() : 0;
+            int width = parent != null ? parent.getWidth() : 600;
+            return new Dimension(width, Math.max(visible, building.floorCount() * MIN_FLOOR_HEIGHT + 2 * MARGIN));
+        }
+
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
 
+            BuildingSnapshot snap = building.getSnapshot();
+            painted = snap;
+
             int panelWidth  = getWidth();
             int panelHeight = getHeight();
-            int floors      = floorCount;
-            int margin      = 50;
-            int floorHeight = (panelHeight - 2 * margin) / floors;
-
-            synchronized (ElevatorRequestSimulation.class) {
-                // этажи и людей
-                for (int f = 1; f <= floors; f++) {
-                    int y = margin + (floors - f) * floorHeight;
-                    boolean hasPeople = false;
-                    if (f > 1) {
-                        int idx = f - 2;
-                        if (idx >= 0 && idx < requests.length && requests[idx] > 0) {
-                            hasPeople = true;
-                        }
-                    }
-                    if (hasPeople) {
-                        g.setColor(new Color(255, 200, 200));
-                        g.fillRect(margin, y, panelWidth - 2*margin, floorHeight);
-                    }
+            int floors      = snap.floorCount();
+            int margin      = MARGIN;
+            int floorHeight = Math.max(MIN_FLOOR_HEIGHT, (panelHeight - 2 * margin) / floors);
+
+            // видимая полоса этажей
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, panelWidth, panelHeight);
+            }
+            int topFloor = Math.min(floors, floors - (clip.y - margin) / floorHeight + 1);
+            int bottomFloor = Math.max(1, floors - (clip.y + clip.height - margin) / floorHeight - 1);
+
+            // метрики пассажиров на ходу (перцентили, мс)
+            SimulationEngine eng = engine;
+            if (eng != null && clip.y < margin) {
+                PassengerMetrics m = eng.getPassengerMetrics();
+                g.setColor(Color.DARK_GRAY);
+                g.drawString("ожидание: " + m.getWait().summary(), margin, 18);
+                g.drawString("поездка:  " + m.getRide().summary(), margin, 34);
+            }
 
-                    g.setColor(Color.LIGHT_GRAY);
-                    g.drawLine(margin, y, panelWidth - margin, y);
-
-                    String floorInfo;
-                    if (f == 1) {
-                        floorInfo = "Этаж 1 (Лобби)";
-                    } else {
-                        int idx = f - 2;
-                        int count = (idx >= 0 && idx < requests.length)
-                                ? requests[idx] : 0;
-                        floorInfo = String.format("Этаж %d: %d ждут", f, count);
-                    }
-                    g.setColor(Color.BLACK);
-                    g.drawString(floorInfo, margin + 10, y + floorHeight/2);
+            // этажи и люди
+            for (int f = bottomFloor; f <= topFloor; f++) {
+                int y = margin + (floors - f) * floorHeight;
+                boolean hasPeople = false;
+                if (f > 1 && snap.waiting(f) > 0) {
+                    hasPeople = true;
+                }
+                if (hasPeople) {
+                    g.setColor(new Color(255, 200, 200));
+                    g.fillRect(margin, y, panelWidth - 2*margin, floorHeight);
+                }
+
+                g.setColor(Color.LIGHT_GRAY);
+                g.drawLine(margin, y, panelWidth - margin, y);
+
+                String floorInfo;
+                if (f == 1) {
+                    floorInfo = "Этаж 1 (Лобби)";
+                } else {
+                    int count = snap.waiting(f);
+                    floorInfo = String.format("Этаж %d: %d ждут", f, count);
                 }
+                g.setColor(Color.BLACK);
+                g.drawString(floorInfo, margin + 10, y + floorHeight/2);
             }
 
-            // лифты
-            int elevatorWidth = 20;
-            for (int i = 0; i < elevatorCount; i++) {
-                Elevator e = elevators[i];
-                int currentFloor;
-                int load;
-                int cap;
-                synchronized (e) {
-                    currentFloor = e.currFloor;
-                    load         = e.currLoad;
-                    cap          = e.capacity;
+            // лифты: при большом числе шахты сужаются, подписи убираются
+            int cars = snap.carCount();
+            int slot = Math.min(70, Math.max(4, (panelWidth - 2 * margin - 160) / Math.max(1, cars)));
+            int elevatorWidth = Math.min(20, Math.min(slot - 2, floorHeight - 2));
+            for (int i = 0; i < cars; i++) {
+                int currentFloor = snap.carFloor(i);
+                int load         = snap.carLoad(i);
+                int cap          = snap.carCapacity(i);
+                if (currentFloor < bottomFloor || currentFloor > topFloor) {
+                    continue;
                 }
 
                 int y = margin + (floors - currentFloor) * floorHeight + floorHeight/2;
-                int x = panelWidth - margin - (elevatorWidth + 50) * (i + 1);
+                int x = panelWidth - margin - slot * (i + 1);
 
                 // цвет лифта
-                Color c = Color.getHSBColor((float) i / elevatorCount, 1f, 1f);
+                Color c = Color.getHSBColor((float) i / cars, 1f, 1f);
                 g.setColor(c);
                 g.fillRect(x, y - elevatorWidth/2, elevatorWidth, elevatorWidth);
 
                 // подпись: "Л1(3/5)"
-                g.setColor(Color.BLACK);
-                g.drawString("Л" + (i+1) + "(" + load + "/" + cap + ")",
-                        x, y - elevatorWidth/2 - 2);
+                if (slot >= 60) {
+                    g.setColor(Color.BLACK);
+                    g.drawString("Л" + (i+1) + "(" + load + "/" + cap + ")",
+                            x, y - elevatorWidth/2 - 2);
+                }
             }
         }
     }
 
+    /*
+     java ElevatorRequestSimulation [engine|platform|virtual|pool]
+     java ElevatorRequestSimulation replay каталог-журнала
+     */
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(ElevatorRequestSimulation::new);
+        if (args.length > 1 && "replay".equals(args[0])) {
+            Path dir = Paths.get(args[1]);
+            SwingUtilities.invokeLater(() -> new ElevatorRequestSimulation(ExecutionMode.ENGINE, dir));
+            return;
+        }
+        ExecutionMode mode = args.length > 0 ? ExecutionMode.byName(args[0]) : ExecutionMode.ENGINE;
+        SwingUtilities.invokeLater(() -> new ElevatorRequestSimulation(mode));
     }
 }
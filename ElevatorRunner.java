@@ -0,0 +1,131 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ запуск лифтов в потоках (для режимов, где лифты шагают сами, а не по событиям движка)
+ остановка - прерыванием потоков, без опроса общего флага
+ */
+public class ElevatorRunner {
+
+    private final ExecutionMode mode;
+    private final List<Thread> threads = new ArrayList<>();
+    private ExecutorService executor;
+
+    public ElevatorRunner(ExecutionMode mode) {
+        this.mode = mode;
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public void start(Elevator[] elevators) {
+        switch (mode) {
+            case PLATFORM_THREADS:
+                for (Elevator elev : elevators) {
+                    Thread t = new Thread(elev, "elevator-" + elev.getId());
+                    t.start();
+                    threads.add(t);
+                }
+                break;
+            case VIRTUAL_THREADS:
+                executor = newVirtualThreadExecutor();
+                for (Elevator elev : elevators) {
+                    executor.execute(elev);
+                }
+                break;
+            case SCHEDULED_POOL:
+                ScheduledExecutorService pool =
+                        Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+                for (Elevator elev : elevators) {
+                    pool.scheduleAtFixedRate(elev::step, SimulationEngine.STEP_TIME,
+                            SimulationEngine.STEP_TIME, TimeUnit.MILLISECONDS);
+                }
+                executor = pool;
+                break;
+            default:
+                throw new IllegalStateException("лифты в режиме " + mode + " шагают в движке");
+        }
+    }
+
+    /*
+     прерываем все потоки лифтов и ждём их завершения
+     */
+    public void stop() {
+        for (Thread t : threads) {
+            t.interrupt();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        try {
+            for (Thread t : threads) {
+                t.join();
+            }
+            if (executor != null) {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        threads.clear();
+        executor = null;
+    }
+
+    /*
+     Executors.newVirtualThreadPerTaskExecutor() появился в Java 21, ищем его
+     через reflection, чтобы код собирался и на более старых JDK
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("[РЕЖИМ] виртуальные потоки недоступны (нужна Java 21+), "
+                    + "используются обычные потоки");
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /*
+     проверка масштаба без GUI: java ElevatorRunner [режим] [лифтов] [этажей] [секунд]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        ExecutionMode mode = args.length > 0 ? ExecutionMode.byName(args[0]) : ExecutionMode.SCHEDULED_POOL;
+        int cars    = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int floors  = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        int[] capacities = new int[cars];
+        for (int i = 0; i < cars; i++) {
+            capacities[i] = 10;
+        }
+        SimulationEngine engine = SimulationEngine.create(floors, capacities, 1);
+        engine.setMode(mode);
+        engine.setRealtimeFactor(1.0);
+        engine.setSimulationSteps((int) (seconds * 1000L / SimulationEngine.TICK_TIME));
+
+        ElevatorRunner runner = null;
+        if (!mode.inEngine()) {
+            runner = new ElevatorRunner(mode);
+            runner.start(engine.getElevators());
+        }
+        MetricsExporter exporter = MetricsExporter.start(engine);
+        engine.run();
+        exporter.close();
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long usedMb = (rt.totalMemory() - rt.freeMemory()) >> 20;
+        int threads = Thread.activeCount();
+        if (runner != null) {
+            runner.stop();
+        }
+        System.out.println("[РЕЖИМ] " + mode + ": лифтов=" + cars + ", потоков=" + threads
+                + ", куча=" + usedMb + " МБ, перевезено=" + engine.getHallCalls().totalBoarded());
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ счётчики одного лифта: этажи, остановки, посадки, такты простоя и время в каждом состоянии (мс)
+ счётчики - LongAdder, поэтому чтение снаружи (JMX, HTTP) не мешает step()
+ */
+public class ElevatorStats implements ElevatorStatsMBean {
+
+    private static final Elevator.ElevSt[] STATES = Elevator.ElevSt.values();
+
+    final LongAdder floorsTravelled = new LongAdder();
+    final LongAdder stops = new LongAdder();       // остановки с посадкой или высадкой
+    final LongAdder pickups = new LongAdder();     // сколько человек село
+    final LongAdder idleTicks = new LongAdder();   // шаги без заявок на 1 этаже
+    private final LongAdder[] stateTime = new LongAdder[STATES.length];
+
+    // часы (виртуальное время движка); без них время по состояниям не считается
+    private volatile LongSupplier clock;
+    // с какого момента и в каком состоянии время ещё не учтено
+    private volatile Elevator.ElevSt current = Elevator.ElevSt.WAITING;
+    private volatile long since = -1;
+
+    public ElevatorStats() {
+        for (int i = 0; i < stateTime.length; i++) {
+            stateTime[i] = new LongAdder();
+        }
+    }
+
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+        this.since = -1;
+    }
+
+    /*
+     до этого момента лифт был в прежнем состоянии, дальше - в state
+     (вызывается под монитором лифта перед сменой состояния)
+     */
+    void account(Elevator.ElevSt state) {
+        LongSupplier c = clock;
+        if (c == null) {
+            return;
+        }
+        long now = c.getAsLong();
+        if (since >= 0 && now > since) {
+            stateTime[current.ordinal()].add(now - since);
+        }
+        current = state;
+        since = now;
+    }
+
+    // время в состоянии state (мс), включая ещё не учтённый хвост
+    public long getStateTime(Elevator.ElevSt state) {
+        long t = stateTime[state.ordinal()].sum();
+        LongSupplier c = clock;
+        long s = since;
+        if (c != null && current == state && s >= 0) {
+            t += Math.max(0, c.getAsLong() - s);
+        }
+        return t;
+    }
+
+    @Override
+    public long getFloorsTravelled() {
+        return floorsTravelled.sum();
+    }
+
+    @Override
+    public long getStops() {
+        return stops.sum();
+    }
+
+    @Override
+    public long getPickups() {
+        return pickups.sum();
+    }
+
+    @Override
+    public long getIdleTicks() {
+        return idleTicks.sum();
+    }
+
+    @Override
+    public long getWaitingTime() {
+        return getStateTime(Elevator.ElevSt.WAITING);
+    }
+
+    @Override
+    public long getMovingUpTime() {
+        return getStateTime(Elevator.ElevSt.MOVING_UP);
+    }
+
+    @Override
+    public long getMovingDownTime() {
+        return getStateTime(Elevator.ElevSt.MOVING_DOWN);
+    }
+
+    // для контрольной точки (см. Checkpoint)
+    void writeState(DataOutput out) throws IOException {
+        out.writeLong(floorsTravelled.sum());
+        out.writeLong(stops.sum());
+        out.writeLong(pickups.sum());
+        out.writeLong(idleTicks.sum());
+        for (LongAdder a : stateTime) {
+            out.writeLong(a.sum());
+        }
+        out.writeByte(current.ordinal());
+        out.writeLong(since);
+    }
+
+    void readState(DataInput in) throws IOException {
+        reset();
+        floorsTravelled.add(in.readLong());
+        stops.add(in.readLong());
+        pickups.add(in.readLong());
+        idleTicks.add(in.readLong());
+        for (LongAdder a : stateTime) {
+            a.add(in.readLong());
+        }
+        current = STATES[in.readByte()];
+        since = in.readLong();
+    }
+
+    public void reset() {
+        floorsTravelled.reset();
+        stops.reset();
+        pickups.reset();
+        idleTicks.reset();
+        for (LongAdder a : stateTime) {
+            a.reset();
+        }
+        since = -1;
+    }
+}
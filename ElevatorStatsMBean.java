@@ -0,0 +1,19 @@
+/**
+ счётчики лифта, видимые через JMX
+ */
+public interface ElevatorStatsMBean {
+
+    long getFloorsTravelled();
+
+    long getStops();
+
+    long getPickups();
+
+    long getIdleTicks();
+
+    long getWaitingTime();
+
+    long getMovingUpTime();
+
+    long getMovingDownTime();
+}
@@ -0,0 +1,127 @@
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ нагрузка для замеров горячих путей (JMH, см. src/jmh/java/bench/ElevatorBenchmark.java):
+ здание с лифтами на случайных этажах, с людьми внутри и ожидающими на части этажей
+
+ JMH не принимает замеры из пакета по умолчанию, а из именованного пакета классы
+ симуляции не видны, поэтому замер создаёт нагрузку через Class.forName и получает
+ операции как IntSupplier (у интерфейса одна реализация на место вызова, JIT её встраивает)
+
+ операция - один проход по всем лифтам банка (addCostReq, estRouteCost, step)
+ или одно распределение ожидающих вызовов (dispatchRequests)
+ */
+public final class ElevatorWorkload {
+
+    private final int floors;
+    private final int elevatorCount;
+    private final double density; // доля этажей с заявками
+    private final HallCallRegistry hallCalls;
+    private final Elevator[] elevators;
+    private final SimulationEngine engine;
+    private final Random rnd = new Random(42);
+    private int cursor = 0;
+
+    /**
+    @param floors // количество этажей
+    @param elevatorCount // количество лифтов (грузоподъёмность 5, 10, 15 по кругу)
+    @param density // доля этажей, где ждут люди и куда у лифтов есть заявки
+     */
+    public ElevatorWorkload(int floors, int elevatorCount, double density) {
+        this.floors = floors;
+        this.elevatorCount = elevatorCount;
+        this.density = density;
+        int[] capacities = new int[elevatorCount];
+        for (int i = 0; i < elevatorCount; i++) {
+            capacities[i] = 5 + (i % 3) * 5;
+        }
+        Building building = new Building(floors, capacities);
+        building.setRunning(true);
+        this.hallCalls = building.getHallCalls();
+        this.elevators = building.getElevators();
+        this.engine = new SimulationEngine(building, 1);
+        reset();
+    }
+
+    // заново раскладываем лифты и людей (вне замера; step и dispatchRequests меняют здание)
+    public void reset() {
+        rnd.setSeed(42);
+        hallCalls.clear();
+        for (int f = 2; f <= floors; f++) {
+            if (rnd.nextDouble() < density) {
+                hallCalls.arrive(f, HallCallRegistry.Direction.DOWN, 1 + rnd.nextInt(5), 0, Building.LOBBY);
+            }
+        }
+        for (Elevator e : elevators) {
+            e.reset();
+            e.placeAt(1 + rnd.nextInt(floors));
+            e.currLoad = rnd.nextInt(e.capacity);
+            e.state = Elevator.ElevSt.values()[rnd.nextInt(3)];
+            for (int f = 2; f <= floors; f++) {
+                if (hallCalls.waiting(f) > 0 && rnd.nextDouble() < density) {
+                    if (f >= e.currFloor) {
+                        e.upReq.add(f);
+                    } else {
+                        e.downReq.add(f);
+                    }
+                }
+            }
+        }
+        engine.getDispatcher().reset();
+        cursor = 0;
+    }
+
+    public Runnable resetter() {
+        return this::reset;
+    }
+
+    /*
+     операция по имени: addCostReq, estRouteCost, step, dispatchRequests
+     результат операции нужно отдать в Blackhole, чтобы JIT не выкинул вычисления
+     */
+    public IntSupplier operation(String name) {
+        switch (name) {
+            case "addCostReq":
+                return () -> {
+                    int acc = 0;
+                    for (int i = 0; i < elevatorCount; i++) {
+                        acc += nextElevator().addCostReq(randomFloor());
+                    }
+                    return acc;
+                };
+            case "estRouteCost":
+                return () -> {
+                    int acc = 0;
+                    for (int i = 0; i < elevatorCount; i++) {
+                        acc += nextElevator().estRouteCost();
+                    }
+                    return acc;
+                };
+            case "step":
+                return () -> {
+                    for (int i = 0; i < elevatorCount; i++) {
+                        nextElevator().step();
+                    }
+                    return elevators[0].currFloor;
+                };
+            case "dispatchRequests":
+                return () -> {
+                    engine.dispatchRequests();
+                    return elevators[0].upReq.size();
+                };
+            default:
+                throw new IllegalArgumentException("неизвестная операция " + name);
+        }
+    }
+
+    private Elevator nextElevator() {
+        Elevator e = elevators[cursor];
+        cursor = cursor + 1 == elevatorCount ? 0 : cursor + 1;
+        return e;
+    }
+
+    private int randomFloor() {
+        return 2 + rnd.nextInt(floors - 1);
+    }
+}
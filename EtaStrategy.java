@@ -0,0 +1,60 @@
+/**
+ оценка времени прибытия (ETA): сколько этажей проедет лифт и сколько раз
+ откроет двери, прежде чем доберётся до floor, если следовать его текущему маршруту
+ (вверх по upReq, затем вниз по downReq, или наоборот)
+ */
+public class EtaStrategy implements DispatchStrategy {
+
+    private final long stepTime; // проезд одного этажа, мс
+    private final long doorTime; // одна остановка, мс
+
+    public EtaStrategy(long stepTime, long doorTime) {
+        this.stepTime = stepTime;
+        this.doorTime = doorTime;
+    }
+
+    @Override
+    public int cost(Elevator e, int floor) {
+        synchronized (e) {
+            if (e.currLoad >= e.capacity) {
+                return Integer.MAX_VALUE;
+            }
+
+            int pos = e.currFloor;
+            long floors = 0;
+            long stops = 0;
+            boolean up = e.state != Elevator.ElevSt.MOVING_DOWN;
+
+            // не больше двух проходов: в текущем направлении и обратно
+            for (int pass = 0; pass < 2; pass++, up = !up) {
+                StopSet set = up ? e.upReq : e.downReq;
+                if (up && floor >= pos) {
+                    // доедем по пути: считаем остановки в [pos, floor)
+                    for (int f = set.next(pos); f >= 0 && f < floor; f = set.next(f + 1)) {
+                        stops++;
+                    }
+                    return eta(floors + floor - pos, stops);
+                }
+                if (!up && floor <= pos) {
+                    // остановки в (floor, pos]
+                    for (int f = set.prev(pos); f > floor; f = set.prev(f - 1)) {
+                        stops++;
+                    }
+                    return eta(floors + pos - floor, stops);
+                }
+                // проходим направление целиком
+                if (!set.isEmpty()) {
+                    int end = up ? set.max() : set.min();
+                    floors += Math.abs(end - pos);
+                    stops += set.size();
+                    pos = end;
+                }
+            }
+            return eta(floors + Math.abs(floor - pos), stops);
+        }
+    }
+
+    private int eta(long floors, long stops) {
+        return (int) Math.min(Integer.MAX_VALUE - 1, floors * stepTime + stops * doorTime);
+    }
+}
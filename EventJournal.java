@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongSupplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ двоичный журнал событий: записи фиксированной длины в отображённых в память
+ файлах-сегментах (journal-000000.ejr, journal-000001.ejr, ...)
+
+ сегмент: заголовок 32 байта (magic, версия, число записей, время первой и последней записи)
+ запись 16 байт: long время | int (тип << 24 | лифт) | ushort этаж | ushort a
+ поле b событий не пишется - загрузку можно восстановить по посадкам и высадкам;
+ у вызова (CALL) лифта нет, на месте лифта пишется этаж назначения
+ этаж и a больше 65535 (лифт больше 2^24) в запись не влезают - такие события
+ не пишутся и считаются отброшенными
+
+ пишет все события независимо от уровня; как и AsyncEventSink, события кладутся
+ в кольцевой буфер без блокировок (EventRing), а в файл их переносит отдельный поток;
+ если буфер полон, событие отбрасывается (и считается), вызывающий поток не ждёт
+ заголовок обновляется после каждой пачки, поэтому после падения процесса
+ в недописанном сегменте видны все перенесённые записи; законченные сегменты
+ можно сжимать (.ejr.gz)
+ */
+public class EventJournal implements EventSink {
+
+    static final int MAGIC = 0x454A524E; // "EJRN"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 16;
+
+    // смещения полей заголовка
+    static final int COUNT_OFFSET = 8;
+    static final int FIRST_TIME_OFFSET = 16;
+    static final int LAST_TIME_OFFSET = 24;
+
+    // 4М записей = 64 МБ на сегмент
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 22;
+    // событий в буфере между потоками
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+
+    private static final int BATCH = 1024; // записей за один перенос
+
+    private final Path dir;
+    private final LongSupplier clock;
+    private final int segmentRecords;
+    private final boolean compress;
+
+    // кольцевой буфер: время, (тип << 24 | лифт), (этаж << 16 | a)
+    private final EventRing ring;
+    private final long[] times;
+    private final int[] codes;
+    private final int[] args;
+
+    // дальше - только поток писателя
+    private FileChannel channel;
+    private MappedByteBuffer buf;
+    private Path segmentPath;
+    private int segmentNo = 0;
+    private int count = 0;       // записей в текущем сегменте
+    private long lastTime = Long.MIN_VALUE;
+    private volatile long total = 0;  // записей всего
+    private volatile IOException failure;
+
+    /**
+    @param dir // каталог журнала (создаётся при необходимости)
+    @param clock // источник времени (виртуальное время движка)
+    @param segmentRecords // записей в одном сегменте
+    @param compress // сжимать законченные сегменты gzip
+    @param capacity // размер буфера между потоками (округляется вверх до степени двойки)
+     */
+    public EventJournal(Path dir, LongSupplier clock, int segmentRecords, boolean compress, int capacity)
+            throws IOException {
+        if (segmentRecords <= 0 || segmentRecords > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE) {
+            throw new IllegalArgumentException("неверный размер сегмента: " + segmentRecords);
+        }
+        this.dir = dir;
+        this.clock = clock;
+        this.segmentRecords = segmentRecords;
+        this.compress = compress;
+        Files.createDirectories(dir);
+
+        this.ring = new EventRing(capacity, BATCH, "journal-writer", new Writer());
+        int size = ring.size();
+        this.times = new long[size];
+        this.codes = new int[size];
+        this.args = new int[size];
+        ring.start();
+    }
+
+    public EventJournal(Path dir, LongSupplier clock, int segmentRecords, boolean compress) throws IOException {
+        this(dir, clock, segmentRecords, compress, DEFAULT_CAPACITY);
+    }
+
+    public EventJournal(Path dir, LongSupplier clock) throws IOException {
+        this(dir, clock, DEFAULT_SEGMENT_RECORDS, false);
+    }
+
+    static Path segmentPath(Path dir, int no) {
+        return dir.resolve(String.format("journal-%06d.ejr", no));
+    }
+
+    @Override
+    public boolean isEnabled(SimEvent.Level level) {
+        return true;
+    }
+
+    @Override
+    public void emit(SimEvent type, int elev, int floor, int a, int b) {
+        int e = type == SimEvent.CALL ? b : elev;
+        if ((floor & ~0xFFFF) != 0 || (a & ~0xFFFF) != 0 || (e & ~0xFFFFFF) != 0) {
+            // в поля записи не помещается
+            ring.drop();
+            return;
+        }
+        long seq = ring.claim();
+        if (seq < 0) {
+            return;
+        }
+        int i = ring.slot(seq);
+        times[i] = clock.getAsLong();
+        codes[i] = type.ordinal() << 24 | e;
+        args[i] = floor << 16 | a;
+        ring.publish(seq);
+    }
+
+    // записей в файлах (после close - все принятые)
+    public long getRecordCount() {
+        return total;
+    }
+
+    // событий, не попавших в журнал: буфер был полон, значения не влезли в запись или журнал закрыт
+    public long getDroppedCount() {
+        return ring.getDroppedCount();
+    }
+
+    /*
+     поток писателя: переносит готовые события в сегмент пачками, после каждой
+     пачки обновляет заголовок; после закрытия закрывает последний сегмент
+     */
+    private final class Writer implements EventRing.Drain {
+
+        @Override
+        public void write(int i) {
+            EventJournal.this.write(times[i], codes[i], args[i]);
+        }
+
+        @Override
+        public void batchDone() {
+            if (buf != null) {
+                // заголовок - после записей: после падения он не опережает данные
+                buf.putLong(LAST_TIME_OFFSET, lastTime);
+                buf.putLong(COUNT_OFFSET, count);
+            }
+        }
+
+        @Override
+        public void finish() {
+            try {
+                if (buf != null) {
+                    finishSegment();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+    }
+
+    private void write(long time, int code, int arg) {
+        if (failure != null) {
+            ring.drop();
+            return;
+        }
+        try {
+            if (buf == null || count == segmentRecords) {
+                roll();
+            }
+        } catch (IOException e) {
+            failure = e;
+            ring.drop();
+            return;
+        }
+        // время берётся уже после захвата ячейки, у соседних ячеек из разных потоков
+        // оно может идти не по порядку; в файле время не убывает
+        time = Math.max(time, lastTime);
+        int pos = HEADER_SIZE + count * RECORD_SIZE;
+        buf.putLong(pos, time);
+        buf.putInt(pos + 8, code);
+        buf.putShort(pos + 12, (short) (arg >>> 16));
+        buf.putShort(pos + 14, (short) arg);
+        if (count == 0) {
+            buf.putLong(FIRST_TIME_OFFSET, time);
+        }
+        lastTime = time;
+        count++;
+        total++;
+    }
+
+    // закрыть текущий сегмент и открыть следующий
+    private void roll() throws IOException {
+        if (buf != null) {
+            finishSegment();
+        }
+        segmentPath = segmentPath(dir, segmentNo++);
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buf = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                HEADER_SIZE + (long) segmentRecords * RECORD_SIZE);
+        buf.putInt(0, MAGIC);
+        buf.putInt(4, VERSION);
+        buf.putLong(FIRST_TIME_OFFSET, Long.MAX_VALUE);
+        buf.putLong(LAST_TIME_OFFSET, Long.MIN_VALUE);
+        count = 0;
+    }
+
+    private void finishSegment() throws IOException {
+        buf.putLong(LAST_TIME_OFFSET, lastTime);
+        buf.putLong(COUNT_OFFSET, count);
+        buf.force();
+        buf = null;
+        // лишний хвост отображения не нужен
+        channel.truncate(HEADER_SIZE + (long) count * RECORD_SIZE);
+        channel.close();
+        channel = null;
+
+        if (compress) {
+            Path gz = segmentPath.resolveSibling(segmentPath.getFileName() + ".gz");
+            try (InputStream in = Files.newInputStream(segmentPath);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz), 1 << 16)) {
+                in.transferTo(out);
+            }
+            Files.delete(segmentPath);
+        }
+    }
+
+    /*
+     закрыть: новые события больше не принимаются, принятые дописываются,
+     последний сегмент закрывается; ошибка записи в файл выбрасывается здесь
+     */
+    @Override
+    public void close() {
+        ring.close();
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException(segmentPath.toString(), e);
+        }
+    }
+}
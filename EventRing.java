@@ -0,0 +1,152 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ кольцевой буфер событий без блокировок с одним потоком-писателем
+ (общий для AsyncEventSink и EventJournal)
+
+ сами поля событий ring не хранит: владелец держит массивы размера size()
+ и пишет событие в ячейку slot(seq) между claim и publish; писатель по порядку
+ номеров отдаёт готовые ячейки владельцу (Drain.write), пачками не больше batch
+ если буфер полон, событие отбрасывается (и считается), вызывающий поток не ждёт
+ close ставит в tail бит закрытия: номера после него не выдаются (события считаются
+ отброшенными), а писатель дописывает все события, на которые номер уже выдан
+ (номер выдан, а событие ещё не опубликовано - ждёт публикации)
+ */
+final class EventRing {
+
+    // что делает писатель с готовыми событиями (всё - в потоке писателя)
+    interface Drain {
+
+        // событие из ячейки slot
+        void write(int slot);
+
+        // пачка кончилась
+        default void batchDone() {
+        }
+
+        // буфер закрыт и всё дописано
+        default void finish() {
+        }
+    }
+
+    // бит закрытия в tail
+    private static final long CLOSED = 1L << 62;
+
+    private final int mask;
+    private final int batch;
+    // номер события, записанного в ячейку (ячейка готова, когда он равен ожидаемому)
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong(); // следующий свободный номер (и бит CLOSED)
+    private volatile long head = 0;                    // следующий номер для писателя
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private final Drain drain;
+
+    /**
+    @param capacity // размер буфера (округляется вверх до степени двойки)
+    @param batch // событий за одну пачку писателя
+    @param name // имя потока писателя
+    @param drain // куда писатель отдаёт события
+     */
+    EventRing(int capacity, int batch, String name, Drain drain) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.batch = batch;
+        this.drain = drain;
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        writer = new Thread(this::writeLoop, name);
+        writer.setDaemon(true);
+    }
+
+    // размер массивов владельца
+    int size() {
+        return mask + 1;
+    }
+
+    // запустить писателя (владелец - после того, как создал свои массивы)
+    void start() {
+        writer.start();
+    }
+
+    /*
+     номер для нового события или -1, если буфер полон или закрыт (событие уже посчитано
+     отброшенным); после записи полей в slot(номер) - publish(номер)
+     */
+    long claim() {
+        long seq;
+        do {
+            seq = tail.get();
+            if ((seq & CLOSED) != 0 || seq - head > mask) {
+                // закрыт или буфер полон - не ждём писателя
+                dropped.incrementAndGet();
+                return -1;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+        return seq;
+    }
+
+    int slot(long seq) {
+        return (int) (seq & mask);
+    }
+
+    void publish(long seq) {
+        published.lazySet(slot(seq), seq);
+    }
+
+    // событие отброшено владельцем (не влезло в запись, ошибка записи и т.п.)
+    void drop() {
+        dropped.incrementAndGet();
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void writeLoop() {
+        while (true) {
+            long t = tail.get();
+            int n = drainBatch();
+            if (n == 0) {
+                if ((t & CLOSED) != 0 && head == (t & ~CLOSED)) {
+                    break;
+                }
+                LockSupport.parkNanos(1_000_000L);
+            }
+        }
+        drain.finish();
+    }
+
+    private int drainBatch() {
+        long h = head;
+        int n = 0;
+        while (n < batch) {
+            int i = (int) (h & mask);
+            if (published.get(i) != h) {
+                break;
+            }
+            drain.write(i);
+            h++;
+            n++;
+        }
+        if (n > 0) {
+            head = h;
+            drain.batchDone();
+        }
+        return n;
+    }
+
+    // закрыть и дождаться, пока писатель допишет принятое
+    void close() {
+        tail.getAndUpdate(t -> t | CLOSED);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ приёмник событий симуляции
+ события передаются примитивами, без строк, поэтому выключенный журнал почти ничего не стоит
+ */
+public interface EventSink {
+
+    // журнал выключен
+    EventSink NOOP = new EventSink() {
+        @Override
+        public boolean isEnabled(SimEvent.Level level) {
+            return false;
+        }
+
+        @Override
+        public void emit(SimEvent type, int elev, int floor, int a, int b) {
+        }
+    };
+
+    boolean isEnabled(SimEvent.Level level);
+
+    /*
+     записать событие type (elev - номер лифта или 0, смысл a и b см. SimEvent)
+     не должен блокировать вызывающий поток
+     */
+    void emit(SimEvent type, int elev, int floor, int a, int b);
+
+    // дописать накопленное и освободить ресурсы
+    default void close() {
+    }
+
+    // события уходят в оба приёмника
+    static EventSink tee(EventSink first, EventSink second) {
+        if (first == NOOP) {
+            return second;
+        }
+        if (second == NOOP) {
+            return first;
+        }
+        return new EventSink() {
+            @Override
+            public boolean isEnabled(SimEvent.Level level) {
+                return first.isEnabled(level) || second.isEnabled(level);
+            }
+
+            @Override
+            public void emit(SimEvent type, int elev, int floor, int a, int b) {
+                first.emit(type, elev, floor, a, b);
+                second.emit(type, elev, floor, a, b);
+            }
+
+            @Override
+            public void close() {
+                first.close();
+                second.close();
+            }
+        };
+    }
+}
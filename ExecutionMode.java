@@ -0,0 +1,33 @@
+/**
+ как шагают лифты
+ */
+public enum ExecutionMode {
+    ENGINE,           // события движка, один поток на всё здание
+    PLATFORM_THREADS, // отдельный системный поток на каждый лифт
+    VIRTUAL_THREADS,  // виртуальный поток на каждый лифт (Java 21+)
+    SCHEDULED_POOL,   // общий пул потоков по числу ядер, шаги по расписанию
+    PHASED;           // такты движка, лифты шагают волнами в нескольких потоках (см. PhasedStepper)
+
+    // лифтами шагает сам движок (без ElevatorRunner), прогон воспроизводим по зерну
+    public boolean inEngine() {
+        return this == ENGINE || this == PHASED;
+    }
+
+    // режим по имени: engine, platform, virtual, pool, phased
+    public static ExecutionMode byName(String name) {
+        switch (name) {
+            case "engine":
+                return ENGINE;
+            case "platform":
+                return PLATFORM_THREADS;
+            case "virtual":
+                return VIRTUAL_THREADS;
+            case "pool":
+                return SCHEDULED_POOL;
+            case "phased":
+                return PHASED;
+            default:
+                return valueOf(name);
+        }
+    }
+}
@@ -0,0 +1,742 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ большой парк лифтов "структурой массивов": этаж, загрузка, грузоподъёмность,
+ состояние и наборы остановок всех лифтов лежат в параллельных массивах примитивов,
+ все лифты продвигаются одним плотным циклом за такт (кусками по CHUNK в fork-join)
+ без мониторов и объектов на лифт
+
+ модель как у Elevator в простом здании: все ездят по всем этажам, пассажиры
+ анонимные и едут в лобби, оно же домашний этаж; назначение - лифт с наименьшей
+ длиной маршрута (Elevator.routeCost) с коэффициентами направления и загрузки
+ NearestCarStrategy.DEFAULT; заполнившийся лифт отдаёт свои этажи обратно на назначение
+ в парке от Dispatcher.INDEX_THRESHOLD лифтов оцениваются только NEAREST_CARS ближайших
+ к этажу свободных лифтов и столько же ближайших занятых, которые едут к этажу
+ (как CarIndex у Dispatcher: лифты разложены по этажам битовыми масками, свободные
+ и занятые отдельно), поэтому назначение этажа не зависит от размера парка
+
+ такт:
+ 1. генератор добавляет вызовы, свободные этажи назначаются
+ 2. шаг всех лифтов: каждый трогает только свои элементы массивов, реестр ждущих
+    только читает, а посадку и освобождённые этажи оставляет на фазу 3
+ 3. в одном потоке по порядку номеров: посадка, возврат этажей на назначение
+    и перенос переехавших лифтов в раскладке по этажам
+
+ поэтому прогон с одним зерном не зависит от того, шагали лифты в одном потоке
+ или в нескольких; для отрисовки - BuildingSnapshot (snapshot())
+ */
+public class FleetEngine {
+
+    // лифтов в одном куске параллельного шага
+    public static final int CHUNK = 4096;
+
+    // состояния - как порядковые номера Elevator.ElevSt
+    static final byte WAITING = 0;
+    static final byte UP = 1;
+    static final byte DOWN = 2;
+    private static final Elevator.ElevSt[] STATES = Elevator.ElevSt.values();
+
+    private static final int HOME = Building.LOBBY;
+    private static final int DOOR_STEPS = (int) (SimulationEngine.DOOR_TIME / SimulationEngine.STEP_TIME);
+    private static final int GENERATE_EVERY = (int) (SimulationEngine.TICK_TIME / SimulationEngine.STEP_TIME);
+
+    private final int floors;
+    private final int cars;
+    private final int words; // слов long на набор остановок одного лифта
+
+    // лифты (индекс - номер лифта - 1)
+    private final int[] floor;
+    private final int[] load;
+    private final int[] cap;
+    private final byte[] state;
+    private final long[] upBits;   // бит f слова i * words + f / 64
+    private final long[] downBits;
+    private final int[] upMin;     // края наборов, -1 - пусто
+    private final int[] upMax;
+    private final int[] downMin;
+    private final int[] downMax;
+    private final int[] hold;      // тактов ещё стоять с открытыми дверями
+    private final int[] stopAt;    // этаж посадки, оставленной на фазу 3 (0 - нет)
+    private final int[] servedAt;  // этаж, убранный из маршрута на этом шаге (0 - нет)
+    private final long[] travelled;
+    private final long[] delivered;
+
+    // раскладка лифтов по этажам: бит i слова slot(f, свободен) * carWords + i / 64 - лифт i
+    // на этаже f (строки этажа 0 всегда пустые); свободен - без заявок и без людей
+    // пишут фаза 3 и назначение (оба в одном потоке), null - парк меньше INDEX_THRESHOLD
+    private final int carWords;
+    private final long[] onFloor;
+    private final int[] onFloorCount;
+    private final int[] at;   // строка, в которой лифт записан в раскладке
+    private final int[] near; // ближайшие кандидаты назначения
+    private int nearestCars = Dispatcher.NEAREST_CARS;
+
+    // этажи: сколько ждут и кому назначен этаж (0 - никому, -1 - в очереди)
+    private final int[] waiting;
+    private final int[] assignee;
+    private final int[] pending; // кольцевая очередь этажей на назначение
+    private int pendingHead = 0;
+    private int pendingSize = 0;
+
+    private final Random rand;
+    private double callsPerTick = ElevatorRequestSimulation.requestProbability;
+    private boolean parallel = true;
+
+    private long now = 0;
+    private long ticks = 0;
+    private long calls = 0;
+    private long people = 0;
+    private long boarded = 0;
+    private long totalWaiting = 0;
+    private long waitingMs = 0; // сумма ожидания всех людей (человеко-мс)
+
+    /**
+    @param floors // количество этажей (этажи нумеруются с 1)
+    @param capacities // грузоподъёмность каждого лифта
+    @param seed // зерно генератора вызовов
+     */
+    public FleetEngine(int floors, int[] capacities, long seed) {
+        this.floors = floors;
+        this.cars = capacities.length;
+        this.words = (floors >>> 6) + 1;
+        this.floor = new int[cars];
+        this.load = new int[cars];
+        this.cap = capacities.clone();
+        this.state = new byte[cars];
+        this.upBits = new long[cars * words];
+        this.downBits = new long[cars * words];
+        this.upMin = new int[cars];
+        this.upMax = new int[cars];
+        this.downMin = new int[cars];
+        this.downMax = new int[cars];
+        this.hold = new int[cars];
+        this.stopAt = new int[cars];
+        this.servedAt = new int[cars];
+        this.travelled = new long[cars];
+        this.delivered = new long[cars];
+        if (cars >= Dispatcher.INDEX_THRESHOLD) {
+            this.carWords = (cars + 63) >>> 6;
+            this.onFloor = new long[2 * (floors + 1) * carWords];
+            this.onFloorCount = new int[2 * (floors + 1)];
+            this.at = new int[cars];
+            this.near = new int[2 * Dispatcher.NEAREST_CARS];
+        } else {
+            this.carWords = 0;
+            this.onFloor = null;
+            this.onFloorCount = null;
+            this.at = null;
+            this.near = null;
+        }
+        this.waiting = new int[floors + 1];
+        this.assignee = new int[floors + 1];
+        this.pending = new int[floors + 1];
+        this.rand = new Random(seed);
+        Arrays.fill(floor, HOME);
+        Arrays.fill(upMin, -1);
+        Arrays.fill(upMax, -1);
+        Arrays.fill(downMin, -1);
+        Arrays.fill(downMax, -1);
+        if (onFloor != null) {
+            int home = slot(HOME, true);
+            for (int i = 0; i < cars; i++) {
+                onFloor[home * carWords + (i >>> 6)] |= 1L << i;
+                at[i] = home;
+            }
+            onFloorCount[home] = cars;
+        }
+    }
+
+    // вызовов за такт генератора в среднем (дробная часть - вероятность ещё одного)
+    public void setCallsPerTick(double callsPerTick) {
+        this.callsPerTick = callsPerTick;
+    }
+
+    /*
+     сколько ближайших свободных и столько же занятых лифтов оценивать при назначении
+     (0 - всех, как в парке меньше INDEX_THRESHOLD)
+     */
+    public void setNearestCars(int nearestCars) {
+        if (nearestCars > Dispatcher.NEAREST_CARS && near != null) {
+            throw new IllegalArgumentException("ближайших лифтов не больше " + Dispatcher.NEAREST_CARS);
+        }
+        this.nearestCars = nearestCars;
+    }
+
+    // шагать кусками в fork-join (false - одним циклом в текущем потоке)
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public void run(int steps) {
+        for (int s = 0; s < steps; s++) {
+            tick();
+        }
+    }
+
+    /*
+     один такт STEP_TIME
+     */
+    public void tick() {
+        if (ticks % GENERATE_EVERY == 0) {
+            generate();
+        }
+        dispatchPending();
+
+        // фаза 2: шаг всех лифтов
+        int chunks = (cars + CHUNK - 1) / CHUNK;
+        if (parallel && chunks > 1) {
+            IntStream.range(0, chunks).parallel()
+                    .forEach(c -> stepRange(c * CHUNK, Math.min(cars, (c + 1) * CHUNK)));
+        } else {
+            stepRange(0, cars);
+        }
+
+        // фаза 3: посадка, освобождённые этажи и переезды по порядку номеров
+        for (int i = 0; i < cars; i++) {
+            int f = stopAt[i];
+            if (f > 0) {
+                board(i, f);
+            }
+            f = servedAt[i];
+            if (f > 0) {
+                served(i, f);
+            }
+            if (onFloor != null) {
+                relocate(i);
+            }
+        }
+
+        waitingMs += totalWaiting * SimulationEngine.STEP_TIME;
+        now += SimulationEngine.STEP_TIME;
+        ticks++;
+    }
+
+    private void generate() {
+        int n = (int) callsPerTick;
+        if (rand.nextDouble() < callsPerTick - n) {
+            n++;
+        }
+        for (int k = 0; k < n && floors > 1; k++) {
+            int f = 2 + rand.nextInt(floors - 1);
+            int p = ElevatorRequestSimulation.peoplePerRequestMin
+                    + rand.nextInt(ElevatorRequestSimulation.peoplePerRequestMax
+                    - ElevatorRequestSimulation.peoplePerRequestMin + 1);
+            call(f, p);
+        }
+    }
+
+    // на этаж f пришли p человек, все едут в лобби
+    public void call(int f, int p) {
+        calls++;
+        people += p;
+        waiting[f] += p;
+        totalWaiting += p;
+        if (assignee[f] == 0) {
+            enqueue(f);
+        }
+    }
+
+    private void enqueue(int f) {
+        assignee[f] = -1;
+        pending[(pendingHead + pendingSize) % pending.length] = f;
+        pendingSize++;
+    }
+
+    private int poll() {
+        int f = pending[pendingHead];
+        pendingHead = (pendingHead + 1) % pending.length;
+        pendingSize--;
+        return f;
+    }
+
+    /*
+     назначение этажей из очереди: лифт с наименьшей длиной маршрута,
+     при равной - с меньшим номером; если все полны, этаж ждёт следующего такта
+     в большом парке выбираем из ближайших свободных и ближайших занятых, едущих
+     к этажу (nearest), иначе - из всех
+     */
+    private void dispatchPending() {
+        int rounds = pendingSize;
+        while (rounds-- > 0) {
+            int f = poll();
+            if (waiting[f] == 0) {
+                assignee[f] = 0;
+                continue;
+            }
+            long best;
+            if (onFloor != null && nearestCars > 0) {
+                best = Long.MAX_VALUE;
+                int n = nearest(f, nearestCars, true, 0);
+                n = nearest(f, nearestCars, false, n);
+                for (int k = 0; k < n; k++) {
+                    int i = near[k];
+                    long c = ((long) cost(i, f) << 32) | i;
+                    if (c < best) {
+                        best = c;
+                    }
+                }
+            } else if (parallel && cars >= Dispatcher.PARALLEL_THRESHOLD) {
+                best = IntStream.range(0, cars).parallel()
+                        .mapToLong(i -> ((long) cost(i, f) << 32) | i)
+                        .min()
+                        .orElse(Long.MAX_VALUE);
+            } else {
+                best = Long.MAX_VALUE;
+                for (int i = 0; i < cars; i++) {
+                    long c = ((long) cost(i, f) << 32) | i;
+                    if (c < best) {
+                        best = c;
+                    }
+                }
+            }
+            if (best == Long.MAX_VALUE || (int) (best >>> 32) == Integer.MAX_VALUE) {
+                enqueue(f);
+                continue;
+            }
+            int i = (int) best;
+            assignee[f] = i + 1;
+            addReq(i, f);
+            if (onFloor != null) {
+                relocate(i);
+            }
+        }
+    }
+
+    /*
+     до k свободных (idle) или занятых лифтов, которые могут взять этаж f, с ближайших
+     к f этажей - в near начиная с from; возвращает, сколько всего записано
+     расстояние растёт, пока не наберётся k; на одном расстоянии (снизу и сверху сразу)
+     берутся лифты с меньшими номерами, поэтому набор не зависит от числа потоков шага
+     пустые этажи пропускаются по счётчику, этаж со стоянкой - по словам маски
+     */
+    private int nearest(int f, int k, boolean idle, int from) {
+        int n = from;
+        int end = from + k;
+        for (int d = 0; n < end && (f + d <= floors || f - d >= 1); d++) {
+            int hi = slot(f + d <= floors ? f + d : 0, idle);
+            int lo = slot(d > 0 && f - d >= 1 ? f - d : 0, idle);
+            if (onFloorCount[hi] == 0 && onFloorCount[lo] == 0) {
+                continue;
+            }
+            int hiBase = hi * carWords;
+            int loBase = lo * carWords;
+            for (int w = 0; w < carWords && n < end; w++) {
+                long v = onFloor[hiBase + w] | onFloor[loBase + w];
+                while (v != 0 && n < end) {
+                    int i = (w << 6) + Long.numberOfTrailingZeros(v);
+                    v &= v - 1;
+                    if (idle || approaching(i, f)) {
+                        near[n++] = i;
+                    }
+                }
+            }
+        }
+        return n;
+    }
+
+    // занятый лифт i с местом едет к этажу f (вверх снизу, вниз сверху) или стоит
+    private boolean approaching(int i, int f) {
+        if (load[i] >= cap[i]) {
+            return false;
+        }
+        byte s = state[i];
+        return s == UP ? floor[i] <= f : s == DOWN ? floor[i] >= f : true;
+    }
+
+    private static int slot(int f, boolean idle) {
+        return idle ? 2 * f + 1 : 2 * f;
+    }
+
+    // перенести лифт i в раскладке на его текущий этаж и занятость
+    private void relocate(int i) {
+        int to = slot(floor[i], load[i] == 0 && upMin[i] < 0 && downMin[i] < 0);
+        int old = at[i];
+        if (old == to) {
+            return;
+        }
+        long bit = 1L << i;
+        onFloor[old * carWords + (i >>> 6)] &= ~bit;
+        onFloorCount[old]--;
+        onFloor[to * carWords + (i >>> 6)] |= bit;
+        onFloorCount[to]++;
+        at[i] = to;
+    }
+
+    /*
+     стоимость этажа f для лифта i как у NearestCarStrategy.DEFAULT: длина маршрута
+     с этажом (как Elevator.routeCostWith) с коэффициентами направления и загрузки,
+     полный - MAX_VALUE
+     */
+    private int cost(int i, int f) {
+        if (load[i] >= cap[i]) {
+            return Integer.MAX_VALUE;
+        }
+        int pos = floor[i];
+        int uMin = upMin[i];
+        int uMax = upMax[i];
+        int dMin = downMin[i];
+        int dMax = downMax[i];
+        byte s = state[i];
+        byte ns = s;
+        boolean toUp;
+        boolean added = true;
+        if (s == WAITING) {
+            toUp = f > pos;
+            if (f > pos) {
+                ns = UP;
+            } else if (f < pos) {
+                ns = DOWN;
+            } else {
+                added = false;
+            }
+        } else if (s == UP) {
+            toUp = f >= pos;
+        } else {
+            toUp = f > pos;
+        }
+        if (added) {
+            if (toUp) {
+                uMin = uMin < 0 ? f : Math.min(uMin, f);
+                uMax = Math.max(uMax, f);
+            } else {
+                dMin = dMin < 0 ? f : Math.min(dMin, f);
+                dMax = Math.max(dMax, f);
+            }
+        }
+        int route = Elevator.routeCost(STATES[ns], pos, uMin, uMax, dMin, dMax, HOME);
+        return NearestCarStrategy.DEFAULT.weigh(route, f, pos, STATES[s], load[i], cap[i]);
+    }
+
+    // как Elevator.addReq
+    private void addReq(int i, int f) {
+        int pos = floor[i];
+        byte s = state[i];
+        if (s == WAITING) {
+            if (f > pos) {
+                state[i] = UP;
+                addUp(i, f);
+            } else if (f < pos) {
+                state[i] = DOWN;
+                addDown(i, f);
+            } else {
+                board(i, f);
+                served(i, f);
+            }
+        } else if (s == UP) {
+            if (f >= pos) {
+                addUp(i, f);
+            } else {
+                addDown(i, f);
+            }
+        } else {
+            if (f > pos) {
+                addUp(i, f);
+            } else {
+                addDown(i, f);
+            }
+        }
+    }
+
+    private void board(int i, int f) {
+        int n = Math.min(waiting[f], cap[i] - load[i]);
+        if (n <= 0) {
+            return;
+        }
+        waiting[f] -= n;
+        totalWaiting -= n;
+        load[i] += n;
+        boarded += n;
+        hold[i] = DOOR_STEPS;
+        if (load[i] == cap[i]) {
+            release(i);
+        }
+    }
+
+    /*
+     лифт i заполнился: оставшиеся этажи его маршрута снова на назначение, сам он
+     едет в лобби; вызывается в одном потоке (фаза 3 или назначение)
+     */
+    private void release(int i) {
+        for (int f = upMin[i]; f > 0; f = upMin[i]) {
+            removeUp(i, f);
+            served(i, f);
+        }
+        for (int f = downMax[i]; f > 0; f = downMax[i]) {
+            removeDown(i, f);
+            served(i, f);
+        }
+    }
+
+    // лифт i убрал этаж f из маршрута; если там ещё ждут - снова на назначение
+    private void served(int i, int f) {
+        if (assignee[f] == i + 1) {
+            assignee[f] = 0;
+            if (waiting[f] > 0) {
+                enqueue(f);
+            }
+        }
+    }
+
+    private void stepRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            step(i);
+        }
+    }
+
+    /*
+     шаг лифта i: трогает только элементы i своих массивов, waiting только читает
+     */
+    private void step(int i) {
+        stopAt[i] = 0;
+        servedAt[i] = 0;
+        if (hold[i] > 0) {
+            hold[i]--;
+            return;
+        }
+        boolean up = upMin[i] > 0;
+        boolean down = downMin[i] > 0;
+        byte s = state[i];
+
+        if ((!up && !down) || (s == WAITING && load[i] > 0)) {
+            // без заявок или с людьми и без направления - в лобби
+            moveHome(i);
+        } else if ((s == WAITING && up) || s == UP) {
+            state[i] = UP;
+            if (up) {
+                int t = upMin[i];
+                if (waiting[t] == 0) {
+                    removeUp(i, t);
+                    servedAt[i] = t;
+                } else if (moveTo(i, t)) {
+                    removeUp(i, t);
+                    stopAt[i] = t;
+                    servedAt[i] = t;
+                    if (upMin[i] < 0) {
+                        state[i] = downMin[i] > 0 ? DOWN : WAITING;
+                    }
+                    return;
+                }
+            } else {
+                state[i] = DOWN;
+            }
+        } else {
+            state[i] = DOWN;
+            if (down) {
+                int t = downMax[i];
+                if (waiting[t] == 0) {
+                    removeDown(i, t);
+                    servedAt[i] = t;
+                } else if (moveTo(i, t)) {
+                    removeDown(i, t);
+                    stopAt[i] = t;
+                    servedAt[i] = t;
+                    if (downMin[i] < 0) {
+                        state[i] = WAITING;
+                    }
+                    return;
+                }
+            } else {
+                state[i] = up ? UP : WAITING;
+            }
+        }
+
+        // вниз мимо этажа с людьми - подбираем по пути
+        int f = floor[i];
+        if (state[i] == DOWN && f > HOME && waiting[f] > 0 && load[i] < cap[i]) {
+            stopAt[i] = f;
+        }
+    }
+
+    // на этаж ближе к t; true - приехали
+    private boolean moveTo(int i, int t) {
+        int f = floor[i];
+        if (t > f) {
+            floor[i] = f + 1;
+            travelled[i]++;
+        } else if (t < f) {
+            floor[i] = f - 1;
+            travelled[i]++;
+        }
+        return floor[i] == t;
+    }
+
+    private void moveHome(int i) {
+        if (floor[i] != HOME) {
+            state[i] = floor[i] > HOME ? DOWN : UP;
+            moveTo(i, HOME);
+        }
+        if (floor[i] == HOME) {
+            state[i] = upMin[i] > 0 ? UP : downMin[i] > 0 ? DOWN : WAITING;
+            if (load[i] > 0) {
+                delivered[i] += load[i];
+                load[i] = 0;
+                hold[i] = DOOR_STEPS;
+            }
+        }
+    }
+
+    private void addUp(int i, int f) {
+        upBits[i * words + (f >>> 6)] |= 1L << f;
+        upMin[i] = upMin[i] < 0 ? f : Math.min(upMin[i], f);
+        upMax[i] = Math.max(upMax[i], f);
+    }
+
+    private void addDown(int i, int f) {
+        downBits[i * words + (f >>> 6)] |= 1L << f;
+        downMin[i] = downMin[i] < 0 ? f : Math.min(downMin[i], f);
+        downMax[i] = Math.max(downMax[i], f);
+    }
+
+    private void removeUp(int i, int f) {
+        upBits[i * words + (f >>> 6)] &= ~(1L << f);
+        if (f == upMin[i]) {
+            upMin[i] = next(upBits, i, f + 1);
+        }
+        if (upMin[i] < 0) {
+            upMax[i] = -1;
+        } else if (f == upMax[i]) {
+            upMax[i] = prev(upBits, i, f - 1);
+        }
+    }
+
+    private void removeDown(int i, int f) {
+        downBits[i * words + (f >>> 6)] &= ~(1L << f);
+        if (f == downMax[i]) {
+            downMax[i] = prev(downBits, i, f - 1);
+        }
+        if (downMax[i] < 0) {
+            downMin[i] = -1;
+        } else if (f == downMin[i]) {
+            downMin[i] = next(downBits, i, f + 1);
+        }
+    }
+
+    // наименьший этаж >= from в наборе лифта i или -1
+    private int next(long[] bits, int i, int from) {
+        if (from > floors) {
+            return -1;
+        }
+        int base = i * words;
+        int w = from >>> 6;
+        long word = bits[base + w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words) {
+                return -1;
+            }
+            word = bits[base + w];
+        }
+    }
+
+    // наибольший этаж <= from в наборе лифта i или -1
+    private int prev(long[] bits, int i, int from) {
+        if (from < 1) {
+            return -1;
+        }
+        int base = i * words;
+        int w = from >>> 6;
+        long word = bits[base + w] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (--w < 0) {
+                return -1;
+            }
+            word = bits[base + w];
+        }
+    }
+
+    // снимок для отрисовки (Elevator-объектов у парка нет)
+    public BuildingSnapshot snapshot() {
+        Elevator.ElevSt[] st = new Elevator.ElevSt[cars];
+        for (int i = 0; i < cars; i++) {
+            st[i] = STATES[state[i]];
+        }
+        return new BuildingSnapshot(now, waiting.clone(), floor.clone(), load.clone(), cap.clone(), st);
+    }
+
+    public long now() {
+        return now;
+    }
+
+    public long getCallCount() {
+        return calls;
+    }
+
+    public long getPeopleCount() {
+        return people;
+    }
+
+    public long getBoardedCount() {
+        return boarded;
+    }
+
+    public long getDeliveredCount() {
+        long n = 0;
+        for (long d : delivered) {
+            n += d;
+        }
+        return n;
+    }
+
+    public long getFloorsTravelled() {
+        long n = 0;
+        for (long t : travelled) {
+            n += t;
+        }
+        return n;
+    }
+
+    // среднее ожидание по закону Литтла: человеко-мс ожидания на вошедшего
+    public double getMeanWait() {
+        return boarded == 0 ? 0 : (double) waitingMs / boarded;
+    }
+
+    // отпечаток состояния: совпадает у прогонов с одним зерном при любом числе потоков
+    public long fingerprint() {
+        long h = Arrays.hashCode(floor);
+        h = h * 31 + Arrays.hashCode(load);
+        h = h * 31 + Arrays.hashCode(state);
+        h = h * 31 + Arrays.hashCode(upBits);
+        h = h * 31 + Arrays.hashCode(downBits);
+        h = h * 31 + Arrays.hashCode(waiting);
+        h = h * 31 + Arrays.hashCode(delivered);
+        h = h * 31 + boarded;
+        h = h * 31 + waitingMs;
+        return h;
+    }
+
+    /*
+     java FleetEngine [лифтов] [этажей] [тактов] [вызовов за такт генератора] [seed] [seq|par]
+     */
+    public static void main(String[] args) {
+        int cars = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int floors = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        double rate = args.length > 3 ? Double.parseDouble(args[3]) : cars / 100.0;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+        boolean par = args.length <= 5 || !"seq".equals(args[5]);
+
+        int[] capacities = new int[cars];
+        Arrays.fill(capacities, 10);
+        FleetEngine fleet = new FleetEngine(floors, capacities, seed);
+        fleet.setCallsPerTick(rate);
+        fleet.setParallel(par);
+
+        long start = System.nanoTime();
+        fleet.run(steps);
+        long ns = System.nanoTime() - start;
+        System.out.println(String.format("[ПАРК] лифтов=%d, этажей=%d, тактов=%d, %s: %.1f нс на шаг лифта, %d мс",
+                cars, floors, steps, par ? "fork-join" : "один поток",
+                (double) ns / ((long) cars * steps), ns / 1_000_000L));
+        System.out.println(String.format("[ПАРК] вызовов=%d, людей=%d, село=%d, доставлено=%d, ждут=%d,"
+                        + " этажей проехано=%d, среднее ожидание=%.0f мс, отпечаток=%016x",
+                fleet.getCallCount(), fleet.getPeopleCount(), fleet.getBoardedCount(), fleet.getDeliveredCount(),
+                fleet.totalWaiting, fleet.getFloorsTravelled(), fleet.getMeanWait(), fleet.fingerprint()));
+    }
+}
@@ -0,0 +1,23 @@
+/**
+ один вызов лифта: в момент time на этаже floor появилось people человек
+ */
+public final class HallCall {
+
+    public final long time;        // виртуальное время, мс
+    public final int floor;        // этаж вызова
+    public final int people;       // сколько человек
+    public final int destination;  // куда едут (-1, если неизвестно)
+
+    public HallCall(long time, int floor, int people, int destination) {
+        this.time = time;
+        this.floor = floor;
+        this.people = people;
+        this.destination = destination;
+    }
+
+    @Override
+    public String toString() {
+        return "HallCall{t=" + time + ", floor=" + floor + ", people=" + people
+                + ", destination=" + destination + "}";
+    }
+}
@@ -0,0 +1,250 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ реестр вызовов с этажей: сколько людей ждёт на каждом этаже в каждом направлении
+ счётчики атомарные, посадка - атомарный захват (CAS), общего замка нет,
+ поэтому генератор и потоки лифтов не теряют обновлений
+
+ кроме счётчиков на этаже хранится очередь пассажиров (arrive, transfer); пассажир
+ встаёт в очередь до увеличения счётчика, а садится только поимённо (claimFor),
+ поэтому за каждым человеком в счётчике стоит пассажир в очереди
+
+ пассажира можно закрепить за лифтом (Passenger.assigned, диспетчеризация по назначению):
+ лифт забирает своих и незакреплённых (claimFor), пассажир захватывается CAS-ом,
+ закреплённые считаются отдельно (unassigned) - на их этаж другой лифт не посылают
+ */
+public class HallCallRegistry {
+
+    // куда хотят ехать ожидающие
+    public enum Direction {
+        UP,
+        DOWN
+    }
+
+    // на этаж отводим целую кэш-линию (16 int = 64 байта), чтобы соседние
+    // этажи не мешали друг другу (false sharing)
+    private static final int STRIDE = 16;
+
+    // в ячейке этажа: [0] ждут вверх, [1] ждут вниз, [2] из них закреплены за лифтами
+    private static final int PINNED = 2;
+
+    private static final AtomicIntegerFieldUpdater<Passenger> CAR =
+            AtomicIntegerFieldUpdater.newUpdater(Passenger.class, "car");
+
+    private final int floorCount;
+    private final AtomicIntegerArray waiting;
+    private final ConcurrentLinkedQueue<Passenger>[] queues; // [этаж * 2 + направление]
+
+    // всего пришло (с пересадками) и уехало людей
+    private final LongAdder arrived  = new LongAdder();
+    private final LongAdder boarded  = new LongAdder();
+
+    /**
+    @param floorCount // количество этажей (этажи нумеруются с 1)
+     */
+    public HallCallRegistry(int floorCount) {
+        this.floorCount = floorCount;
+        this.waiting = new AtomicIntegerArray((floorCount + 1) * STRIDE);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        ConcurrentLinkedQueue<Passenger>[] q = new ConcurrentLinkedQueue[(floorCount + 1) * 2];
+        for (int i = 0; i < q.length; i++) {
+            q[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.queues = q;
+    }
+
+    public int floorCount() {
+        return floorCount;
+    }
+
+    private static int slot(int floor, Direction dir) {
+        return floor * STRIDE + dir.ordinal();
+    }
+
+    // people человек встали в очередь на этаже floor (сами пассажиры уже в очереди)
+    private void add(int floor, Direction dir, int people) {
+        waiting.addAndGet(slot(floor, dir), people);
+        arrived.add(people);
+    }
+
+    /*
+     people человек пришли на этаж floor в момент time и едут на этаж destination
+     */
+    public void arrive(int floor, Direction dir, int people, long time, int destination) {
+        arrive(floor, dir, people, time, destination, 0);
+    }
+
+    // то же, пассажиры закреплены за лифтом car (0 - за любым)
+    public void arrive(int floor, Direction dir, int people, long time, int destination, int car) {
+        ConcurrentLinkedQueue<Passenger> q = queues[floor * 2 + dir.ordinal()];
+        for (int i = 0; i < people; i++) {
+            Passenger p = new Passenger(time, floor, destination);
+            p.assigned = car;
+            q.offer(p);
+        }
+        if (car != 0) {
+            waiting.addAndGet(floor * STRIDE + PINNED, people);
+        }
+        add(floor, dir, people);
+    }
+
+    // направление поездки с этажа floor на этаж destination
+    public static Direction direction(int floor, int destination) {
+        return destination > floor ? Direction.UP : Direction.DOWN;
+    }
+
+    /*
+     пассажир p пересаживается: встаёт в очередь на этаже floor (скай-лобби)
+     */
+    public void transfer(Passenger p, int floor) {
+        Direction dir = direction(floor, p.destination);
+        p.assigned = 0;
+        p.car = 0;
+        queues[floor * 2 + dir.ordinal()].offer(p);
+        add(floor, dir, 1);
+    }
+
+    public int waiting(int floor, Direction dir) {
+        if (floor < 1 || floor > floorCount) {
+            return 0;
+        }
+        return waiting.get(slot(floor, dir));
+    }
+
+    // все ожидающие на этаже
+    public int waiting(int floor) {
+        if (floor < 1 || floor > floorCount) {
+            return 0;
+        }
+        int base = floor * STRIDE;
+        return waiting.get(base) + waiting.get(base + 1);
+    }
+
+    /*
+     забрать до max пассажиров направления dir, закреплённых за лифтом carId или ни за кем,
+     которых лифт может довезти (accept); очередь просматривается по порядку прихода,
+     пассажир захватывается CAS-ом, поэтому два лифта одного пассажира не возьмут
+     это единственный способ посадки: счётчики этажа уменьшаются ровно на захваченных
+     */
+    public int claimFor(int floor, Direction dir, int carId, int max, Collection<Passenger> into,
+                        Predicate<Passenger> accept) {
+        if (max <= 0 || floor < 1 || floor > floorCount) {
+            return 0;
+        }
+        int n = 0;
+        int pinned = 0;
+        Iterator<Passenger> it = queues[floor * 2 + dir.ordinal()].iterator();
+        while (n < max && it.hasNext()) {
+            Passenger p = it.next();
+            int a = p.assigned;
+            if ((a == 0 || a == carId) && p.car == 0 && accept.test(p) && CAR.compareAndSet(p, 0, carId)) {
+                it.remove();
+                into.add(p);
+                n++;
+                if (a != 0) {
+                    pinned++;
+                }
+            }
+        }
+        if (pinned > 0) {
+            waiting.addAndGet(floor * STRIDE + PINNED, -pinned);
+        }
+        if (n > 0) {
+            waiting.addAndGet(slot(floor, dir), -n);
+            boarded.add(n);
+        }
+        return n;
+    }
+
+    // ждут ли на этаже пассажиры, закреплённые за лифтом carId
+    public boolean hasAssigned(int floor, int carId) {
+        for (Direction dir : Direction.values()) {
+            for (Passenger p : queues[floor * 2 + dir.ordinal()]) {
+                if (p.assigned == carId && p.car == 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ждущие на этаже, не закреплённые ни за каким лифтом (их этаж назначает диспетчер)
+    public int unassigned(int floor) {
+        if (floor < 1 || floor > floorCount) {
+            return 0;
+        }
+        return waiting(floor) - waiting.get(floor * STRIDE + PINNED);
+    }
+
+    // общее число ожидающих: пришло минус уехало, без прохода по этажам
+    public int totalWaiting() {
+        return (int) (arrived.sum() - boarded.sum());
+    }
+
+    public long totalArrived() {
+        return arrived.sum();
+    }
+
+    public long totalBoarded() {
+        return boarded.sum();
+    }
+
+    /*
+     для контрольной точки (см. Checkpoint): счётчики этажей, очереди пассажиров
+     по порядку прихода и итоги; реестр не должен меняться во время записи
+     */
+    void writeState(DataOutput out) throws IOException {
+        for (int f = 1; f <= floorCount; f++) {
+            out.writeInt(waiting.get(slot(f, Direction.UP)));
+            out.writeInt(waiting.get(slot(f, Direction.DOWN)));
+            out.writeInt(waiting.get(f * STRIDE + PINNED));
+        }
+        for (ConcurrentLinkedQueue<Passenger> q : queues) {
+            out.writeInt(q.size());
+            for (Passenger p : q) {
+                p.write(out);
+            }
+        }
+        out.writeLong(arrived.sum());
+        out.writeLong(boarded.sum());
+    }
+
+    void readState(DataInput in) throws IOException {
+        clear();
+        for (int f = 1; f <= floorCount; f++) {
+            waiting.set(slot(f, Direction.UP), in.readInt());
+            waiting.set(slot(f, Direction.DOWN), in.readInt());
+            waiting.set(f * STRIDE + PINNED, in.readInt());
+        }
+        for (ConcurrentLinkedQueue<Passenger> q : queues) {
+            for (int n = in.readInt(); n > 0; n--) {
+                q.offer(Passenger.read(in));
+            }
+        }
+        arrived.add(in.readLong());
+        boarded.add(in.readLong());
+    }
+
+    // обнуление перед новым запуском
+    public void clear() {
+        for (int f = 1; f <= floorCount; f++) {
+            waiting.set(slot(f, Direction.UP), 0);
+            waiting.set(slot(f, Direction.DOWN), 0);
+            waiting.set(f * STRIDE + PINNED, 0);
+        }
+        for (ConcurrentLinkedQueue<Passenger> q : queues) {
+            q.clear();
+        }
+        arrived.reset();
+        boarded.reset();
+    }
+}
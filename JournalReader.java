@@ -0,0 +1,196 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ чтение двоичного журнала (см. EventJournal): последовательный проход и переход к времени
+ поля текущей записи доступны через геттеры, на каждую запись объекты не создаются
+
+   JournalReader r = new JournalReader(dir);
+   r.seek(60_000);
+   while (r.next()) { ... r.time(), r.type(), r.elev(), r.floor(), r.a() ... }
+ */
+public class JournalReader implements AutoCloseable {
+
+    private static final SimEvent[] TYPES = SimEvent.values();
+
+    private final List<Path> segments = new ArrayList<>();
+    // время последней записи сегмента (из заголовка, читается при первом обращении)
+    private final long[] lastTimes;
+    private final boolean[] timesRead;
+
+    private int segIndex = -1;
+    private ByteBuffer buf;
+    private int count;   // записей в текущем сегменте
+    private int pos;     // индекс следующей записи
+
+    // текущая запись
+    private long time;
+    private SimEvent type;
+    private int elev;
+    private int floor;
+    private int a;
+
+    public JournalReader(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith("journal-") && (name.endsWith(".ejr") || name.endsWith(".ejr.gz"));
+            }).sorted().forEach(segments::add);
+        }
+        lastTimes = new long[segments.size()];
+        timesRead = new boolean[segments.size()];
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /*
+     следующая запись; false - журнал кончился
+     */
+    public boolean next() {
+        while (buf == null || pos >= count) {
+            if (segIndex + 1 >= segments.size()) {
+                return false;
+            }
+            open(segIndex + 1);
+        }
+        int off = EventJournal.HEADER_SIZE + pos * EventJournal.RECORD_SIZE;
+        time = buf.getLong(off);
+        int te = buf.getInt(off + 8);
+        type = TYPES[te >>> 24];
+        elev = te & 0xFFFFFF;
+        floor = buf.getShort(off + 12) & 0xFFFF;
+        a = buf.getShort(off + 14) & 0xFFFF;
+        pos++;
+        return true;
+    }
+
+    /*
+     встать перед первой записью со временем >= t (двоичный поиск по сегментам и записям)
+     сегменты выбираются по времени из заголовков, распаковывается только нужный
+     */
+    public void seek(long t) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        // первый сегмент, который кончается не раньше t (одно время может занимать
+        // несколько сегментов подряд); если такого нет - последний, встанем в его конец
+        int lo = 0;
+        int hi = segments.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lastTime(mid) < t) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        open(lo);
+        // первая запись с временем >= t
+        int l = 0;
+        int h = count;
+        while (l < h) {
+            int mid = (l + h) >>> 1;
+            if (recordTime(mid) < t) {
+                l = mid + 1;
+            } else {
+                h = mid;
+            }
+        }
+        pos = l;
+    }
+
+    /*
+     время последней записи сегмента (у пустого - Long.MIN_VALUE): читается только
+     заголовок (у сжатого - первые байты распаковки)
+     */
+    private long lastTime(int seg) {
+        if (timesRead[seg]) {
+            return lastTimes[seg];
+        }
+        Path p = segments.get(seg);
+        ByteBuffer h;
+        try (InputStream in = p.getFileName().toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(p)) : Files.newInputStream(p)) {
+            h = ByteBuffer.wrap(in.readNBytes(EventJournal.HEADER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(p.toString(), e);
+        }
+        if (h.limit() != EventJournal.HEADER_SIZE || h.getInt(0) != EventJournal.MAGIC
+                || h.getInt(4) != EventJournal.VERSION) {
+            throw new IllegalStateException(p + ": не журнал или другая версия");
+        }
+        boolean empty = h.getLong(EventJournal.COUNT_OFFSET) == 0;
+        lastTimes[seg] = empty ? Long.MIN_VALUE : h.getLong(EventJournal.LAST_TIME_OFFSET);
+        timesRead[seg] = true;
+        return lastTimes[seg];
+    }
+
+    private long recordTime(int i) {
+        return buf.getLong(EventJournal.HEADER_SIZE + i * EventJournal.RECORD_SIZE);
+    }
+
+    // открыть сегмент: обычный отображается в память, сжатый распаковывается
+    private void open(int seg) {
+        if (seg == segIndex && buf != null) {
+            pos = 0;
+            return;
+        }
+        Path p = segments.get(seg);
+        try {
+            if (p.getFileName().toString().endsWith(".gz")) {
+                try (InputStream in = new GZIPInputStream(Files.newInputStream(p), 1 << 16)) {
+                    buf = ByteBuffer.wrap(in.readAllBytes());
+                }
+            } else {
+                try (FileChannel ch = FileChannel.open(p, StandardOpenOption.READ)) {
+                    buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(p.toString(), e);
+        }
+        if (buf.getInt(0) != EventJournal.MAGIC || buf.getInt(4) != EventJournal.VERSION) {
+            throw new IllegalStateException(p + ": не журнал или другая версия");
+        }
+        count = (int) buf.getLong(EventJournal.COUNT_OFFSET);
+        segIndex = seg;
+        pos = 0;
+    }
+
+    public long time() {
+        return time;
+    }
+
+    public SimEvent type() {
+        return type;
+    }
+
+    public int elev() {
+        return elev;
+    }
+
+    public int floor() {
+        return floor;
+    }
+
+    public int a() {
+        return a;
+    }
+
+    @Override
+    public void close() {
+        buf = null;
+    }
+}
@@ -0,0 +1,212 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ восстановление прогона по двоичному журналу: состояние здания (кто где ждёт,
+ где лифты и сколько в них людей) и метрики за интервал времени
+ */
+public class JournalReplay {
+
+    private final HallCallRegistry hallCalls;
+    private int[] carFloor = new int[0];
+    private int[] carLoad = new int[0];
+    private final List<Passenger> boarded = new ArrayList<>(); // буфер для claimFor
+
+    // время последней применённой записи
+    private long time = 0;
+
+    // метрики
+    private long events = 0;
+    private long calls = 0;
+    private long people = 0;
+    private long pickedUp = 0;
+    private long unloaded = 0;
+    private long floorsTravelled = 0;
+    private long[] byType = new long[SimEvent.values().length];
+
+    /**
+    @param hallCalls // реестр, в котором восстанавливаются ожидающие
+     */
+    public JournalReplay(HallCallRegistry hallCalls) {
+        this.hallCalls = hallCalls;
+    }
+
+    /*
+     применить текущую запись читателя к состоянию
+     */
+    public void apply(JournalReader r) {
+        events++;
+        time = r.time();
+        byType[r.type().ordinal()]++;
+        int e = r.elev();
+        if (e > 0 && r.type() != SimEvent.CALL) {
+            ensureCar(e);
+        }
+        switch (r.type()) {
+            case CALL:
+                // у вызова на месте лифта этаж назначения
+                calls++;
+                people += r.a();
+                hallCalls.arrive(r.floor(), HallCallRegistry.direction(r.floor(), e), r.a(), r.time(), e);
+                break;
+            case PICKUP:
+                pickedUp += r.a();
+                board(e, r.floor(), r.a());
+                carLoad[e - 1] += r.a();
+                moveCar(e, r.floor());
+                break;
+            case MOVE:
+                moveCar(e, r.a());
+                break;
+            case RETURN:
+            case ARRIVE:
+                moveCar(e, r.floor());
+                break;
+            case UNLOAD:
+                unloaded += r.a();
+                carLoad[e - 1] = Math.max(0, carLoad[e - 1] - r.a());
+                moveCar(e, r.floor());
+                break;
+            default:
+                break;
+        }
+    }
+
+    // лифт e забрал n человек с этажа floor (сначала вниз, потом вверх, как в журнале без направления)
+    private void board(int e, int floor, int n) {
+        int taken = hallCalls.claimFor(floor, HallCallRegistry.Direction.DOWN, e, n, boarded, p -> true);
+        hallCalls.claimFor(floor, HallCallRegistry.Direction.UP, e, n - taken, boarded, p -> true);
+        boarded.clear();
+    }
+
+    private void moveCar(int e, int floor) {
+        int prev = carFloor[e - 1];
+        floorsTravelled += Math.abs(floor - prev);
+        carFloor[e - 1] = floor;
+    }
+
+    private void ensureCar(int e) {
+        if (e > carFloor.length) {
+            int old = carFloor.length;
+            carFloor = Arrays.copyOf(carFloor, e);
+            carLoad = Arrays.copyOf(carLoad, e);
+            Arrays.fill(carFloor, old, e, 1);
+        }
+    }
+
+    /*
+     снимок восстановленного состояния для отрисовки; грузоподъёмность берётся
+     из лифтов здания, состояние движения журнал не хранит (все WAITING)
+     */
+    public BuildingSnapshot snapshot(Building building) {
+        Elevator[] elevators = building.getElevators();
+        int n = elevators.length;
+        int[] waiting = new int[hallCalls.floorCount() + 1];
+        for (int f = 1; f < waiting.length; f++) {
+            waiting[f] = hallCalls.waiting(f);
+        }
+        int[] floor = new int[n];
+        int[] load = new int[n];
+        int[] cap = new int[n];
+        Elevator.ElevSt[] state = new Elevator.ElevSt[n];
+        for (int i = 0; i < n; i++) {
+            floor[i] = i < carFloor.length ? carFloor[i] : elevators[i].getHomeFloor();
+            load[i] = i < carLoad.length ? carLoad[i] : 0;
+            cap[i] = elevators[i].capacity;
+            state[i] = Elevator.ElevSt.WAITING;
+        }
+        return new BuildingSnapshot(time, waiting, floor, load, cap, state);
+    }
+
+    /*
+     проиграть журнал с темпом realtimeFactor (0 - без ожидания),
+     каждые tickTime мс виртуального времени вызывается onTick
+     */
+    public void play(JournalReader r, double realtimeFactor, long tickTime, Runnable onTick)
+            throws InterruptedException {
+        long wallStart = System.nanoTime();
+        long nextTick = Long.MIN_VALUE;
+        while (r.next()) {
+            if (nextTick == Long.MIN_VALUE) {
+                nextTick = r.time();
+            }
+            while (r.time() >= nextTick) {
+                onTick.run();
+                nextTick += tickTime;
+                if (realtimeFactor > 0) {
+                    long target = wallStart + (long) (nextTick / realtimeFactor * 1_000_000L);
+                    long delay = target - System.nanoTime();
+                    if (delay > 0) {
+                        Thread.sleep(delay / 1_000_000L, (int) (delay % 1_000_000L));
+                    }
+                }
+            }
+            apply(r);
+        }
+        onTick.run();
+    }
+
+    public int carCount() {
+        return carFloor.length;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("событий=").append(events)
+                .append(", вызовов=").append(calls)
+                .append(", людей=").append(people)
+                .append(", подобрано=").append(pickedUp)
+                .append(", высажено=").append(unloaded)
+                .append(", этажей проехано=").append(floorsTravelled)
+                .append(", ждут=").append(hallCalls.totalWaiting());
+        for (SimEvent t : SimEvent.values()) {
+            if (byType[t.ordinal()] > 0) {
+                sb.append("\n  ").append(t).append(": ").append(byType[t.ordinal()]);
+            }
+        }
+        for (int i = 0; i < carFloor.length; i++) {
+            sb.append("\n  лифт ").append(i + 1).append(": этаж ").append(carFloor[i])
+                    .append(", загрузка ").append(carLoad[i]);
+        }
+        return sb.toString();
+    }
+
+    /*
+     java JournalReplay каталог [этажей] [до, мс] [с, мс]
+     состояние восстанавливается с начала журнала до момента "до",
+     метрики считаются по интервалу [с, до] (начало ищется через seek)
+     */
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args[0]);
+        int floors = args.length > 1 ? Integer.parseInt(args[1]) : ElevatorRequestSimulation.floorCount;
+        long to = args.length > 2 ? Long.parseLong(args[2]) : Long.MAX_VALUE;
+        long from = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        long start = System.nanoTime();
+        JournalReplay state = new JournalReplay(new HallCallRegistry(floors));
+        try (JournalReader r = new JournalReader(dir)) {
+            while (r.next() && r.time() <= to) {
+                state.apply(r);
+            }
+        }
+        long stateNs = System.nanoTime() - start;
+        System.out.println("[ЖУРНАЛ] состояние на t=" + (to == Long.MAX_VALUE ? "конец" : to) + ": "
+                + state.report());
+        System.out.println(String.format("[ЖУРНАЛ] скорость: %.1f млн событий/с", state.events * 1e3 / stateNs));
+
+        if (from > 0) {
+            JournalReplay window = new JournalReplay(new HallCallRegistry(floors));
+            try (JournalReader r = new JournalReader(dir)) {
+                r.seek(from);
+                while (r.next() && r.time() <= to) {
+                    window.apply(r);
+                }
+            }
+            System.out.println("[ЖУРНАЛ] интервал [" + from + ", " + to + "]: " + window.report());
+        }
+    }
+}
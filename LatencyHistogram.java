@@ -0,0 +1,155 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ гистограмма времён в духе HdrHistogram: логарифмические корзины, каждая поделена
+ на 128 линейных частей, поэтому относительная ошибка перцентиля меньше 1%
+ запись - несколько атомарных счётчиков, без выделения памяти; писать можно из любых потоков,
+ читать (перцентили) можно на ходу
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int SUB = 1 << SUB_BITS;     // линейных частей в корзине
+    private static final int MAX_SHIFT = 40;           // значения до 2^48 мс
+    private static final long MAX_VALUE = (1L << (MAX_SHIFT + SUB_BITS + 1)) - 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAX_SHIFT + 2) * SUB);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /*
+     индекс: значения до 2*SUB пишутся как есть, дальше у значения оставляем
+     старшие SUB_BITS+1 бит, а сдвиг задаёт номер корзины
+     */
+    static int index(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return shift * SUB + (int) (value >>> shift);
+    }
+
+    // наибольшее значение, попадающее в корзину index
+    static long highestValue(int index) {
+        int shift = Math.max(0, index / SUB - 1);
+        long m = index - (long) shift * SUB;
+        return ((m + 1) << shift) - 1;
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /*
+     значение, не меньше которого p процентов записей (p от 0 до 100)
+     */
+    public long percentile(double p) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValue(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    // добавить все записи другой гистограммы (сводка по нескольким прогонам)
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length(); i++) {
+            long c = other.counts.get(i);
+            if (c != 0) {
+                counts.addAndGet(i, c);
+            }
+        }
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        long v = other.max.get();
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) {
+            m = max.get();
+        }
+    }
+
+    // для контрольной точки: только непустые корзины (индекс, число)
+    void writeState(DataOutput out) throws IOException {
+        int used = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            if (counts.get(i) != 0) {
+                used++;
+            }
+        }
+        out.writeInt(used);
+        for (int i = 0; i < counts.length(); i++) {
+            long c = counts.get(i);
+            if (c != 0) {
+                out.writeShort(i);
+                out.writeLong(c);
+            }
+        }
+        out.writeLong(count.sum());
+        out.writeLong(sum.sum());
+        out.writeLong(max.get());
+    }
+
+    void readState(DataInput in) throws IOException {
+        reset();
+        for (int n = in.readInt(); n > 0; n--) {
+            int i = in.readUnsignedShort();
+            counts.set(i, in.readLong());
+        }
+        count.add(in.readLong());
+        sum.add(in.readLong());
+        max.set(in.readLong());
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    // p50/p95/p99/max одной строкой
+    public String summary() {
+        return "n=" + getCount() + " p50=" + percentile(50) + " p95=" + percentile(95)
+                + " p99=" + percentile(99) + " max=" + getMax();
+    }
+}
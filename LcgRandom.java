@@ -0,0 +1,44 @@
+import java.util.Random;
+
+/**
+ генератор с той же последовательностью, что java.util.Random (тот же линейный
+ конгруэнтный метод, те же nextInt, nextDouble и т.д. при том же зерне), но его
+ состояние - одно 48-битное число, которое можно сохранить и восстановить
+ (контрольная точка пишет его writeLong, без сериализации объектов)
+
+ nextGaussian хранит второе значение пары внутри Random, в состояние оно не входит
+ */
+public class LcgRandom extends Random {
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // без инициализатора: его задаёт setSeed из конструктора Random
+    private long state;
+
+    public LcgRandom(long seed) {
+        super(seed);
+    }
+
+    // как Random.setSeed: зерно перемешивается с множителем
+    @Override
+    public synchronized void setSeed(long seed) {
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    @Override
+    protected synchronized int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+
+    // состояние для контрольной точки
+    public synchronized long getState() {
+        return state;
+    }
+
+    public synchronized void setState(long state) {
+        this.state = state & MASK;
+    }
+}
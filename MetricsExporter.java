@@ -0,0 +1,216 @@
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ метрики прогона снаружи, без остановки симуляции:
+ - JMX: elevators:type=Elevator,engine=K,id=N и elevators:type=Dispatcher,engine=K
+   (jconsole, VisualVM); K - номер экспортёра в JVM, у каждого движка свои имена
+ - HTTP (если задан порт): GET http://127.0.0.1:порт/metrics - текст в формате Prometheus
+
+ все счётчики читаются на ходу, лифты и диспетчер при этом не блокируются
+ */
+public class MetricsExporter implements AutoCloseable {
+
+    // системное свойство с портом HTTP (-Delevator.metrics.port=9100)
+    public static final String PORT_PROPERTY = "elevator.metrics.port";
+
+    // номера экспортёров (ключ engine в именах MBean)
+    private static final AtomicInteger NEXT_KEY = new AtomicInteger(1);
+
+    private final SimulationEngine engine;
+    private final String key;
+    private final List<ObjectName> registered = new ArrayList<>();
+    private HttpServer server;
+
+    /**
+    @param engine // чей прогон показывать
+    @param key // значение ключа engine в именах MBean (должно быть уникально в JVM)
+     */
+    public MetricsExporter(SimulationEngine engine, String key) {
+        this.engine = engine;
+        this.key = key;
+    }
+
+    public MetricsExporter(SimulationEngine engine) {
+        this(engine, Integer.toString(NEXT_KEY.getAndIncrement()));
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /*
+     MBean на каждый лифт и на диспетчер
+     если имя уже занято (тот же ключ у другого экспортёра), чужой MBean не трогаем:
+     бросается InstanceAlreadyExistsException, уже зарегистрированные снимаются
+     */
+    public void registerMBeans() throws JMException {
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (Elevator e : engine.getElevators()) {
+                register(mbs, new ObjectName("elevators:type=Elevator,engine=" + key + ",id=" + e.getId()),
+                        e.getStats());
+            }
+            register(mbs, new ObjectName("elevators:type=Dispatcher,engine=" + key),
+                    engine.getDispatcher().getStats());
+        } catch (JMException ex) {
+            unregisterAll();
+            throw ex;
+        }
+    }
+
+    private void register(MBeanServer mbs, ObjectName name, Object bean) throws JMException {
+        mbs.registerMBean(bean, name);
+        registered.add(name);
+    }
+
+    private void unregisterAll() {
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                if (mbs.isRegistered(name)) {
+                    mbs.unregisterMBean(name);
+                }
+            } catch (JMException ex) {
+                // уже снят
+            }
+        }
+        registered.clear();
+    }
+
+    /*
+     текстовая точка /metrics только на локальном интерфейсе
+     */
+    public void startHttp(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = format().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    public int getHttpPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /*
+     все метрики в текстовом формате Prometheus
+     */
+    public String format() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("# TYPE elevator_floors_travelled_total counter\n");
+        for (Elevator e : engine.getElevators()) {
+            line(sb, "elevator_floors_travelled_total", e, null, e.getStats().getFloorsTravelled());
+        }
+        sb.append("# TYPE elevator_stops_total counter\n");
+        for (Elevator e : engine.getElevators()) {
+            line(sb, "elevator_stops_total", e, null, e.getStats().getStops());
+        }
+        sb.append("# TYPE elevator_pickups_total counter\n");
+        for (Elevator e : engine.getElevators()) {
+            line(sb, "elevator_pickups_total", e, null, e.getStats().getPickups());
+        }
+        sb.append("# TYPE elevator_idle_ticks_total counter\n");
+        for (Elevator e : engine.getElevators()) {
+            line(sb, "elevator_idle_ticks_total", e, null, e.getStats().getIdleTicks());
+        }
+        sb.append("# TYPE elevator_state_ms_total counter\n");
+        for (Elevator e : engine.getElevators()) {
+            for (Elevator.ElevSt st : Elevator.ElevSt.values()) {
+                line(sb, "elevator_state_ms_total", e, st.name(), e.getStats().getStateTime(st));
+            }
+        }
+
+        DispatcherStats d = engine.getDispatcher().getStats();
+        sb.append("# TYPE dispatcher_calls_total counter\n");
+        sb.append("dispatcher_calls_total ").append(d.getCalls()).append('\n');
+        sb.append("# TYPE dispatcher_cost_evaluations_total counter\n");
+        sb.append("dispatcher_cost_evaluations_total ").append(d.getCostEvaluations()).append('\n');
+        sb.append("# TYPE dispatcher_assigned_total counter\n");
+        sb.append("dispatcher_assigned_total ").append(d.getAssigned()).append('\n');
+        sb.append("# TYPE dispatcher_requeued_total counter\n");
+        sb.append("dispatcher_requeued_total ").append(d.getRequeued()).append('\n');
+        sb.append("# TYPE dispatcher_batches_total counter\n");
+        sb.append("dispatcher_batches_total ").append(d.getBatches()).append('\n');
+        sb.append("# TYPE dispatcher_batch_fallbacks_total counter\n");
+        sb.append("dispatcher_batch_fallbacks_total ").append(d.getBatchFallbacks()).append('\n');
+        summary(sb, "dispatcher_latency_ns", d.getLatency());
+
+        PassengerMetrics m = engine.getPassengerMetrics();
+        summary(sb, "passenger_wait_ms", m.getWait());
+        summary(sb, "passenger_ride_ms", m.getRide());
+        summary(sb, "passenger_journey_ms", m.getJourney());
+
+        sb.append("# TYPE simulation_time_ms gauge\n");
+        sb.append("simulation_time_ms ").append(engine.now()).append('\n');
+        sb.append("# TYPE simulation_waiting gauge\n");
+        sb.append("simulation_waiting ").append(engine.getHallCalls().totalWaiting()).append('\n');
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, String name, Elevator e, String state, long value) {
+        sb.append(name).append("{car=\"").append(e.getId()).append('"');
+        if (state != null) {
+            sb.append(",state=\"").append(state).append('"');
+        }
+        sb.append("} ").append(value).append('\n');
+    }
+
+    private static void summary(StringBuilder sb, String name, LatencyHistogram h) {
+        sb.append("# TYPE ").append(name).append(" summary\n");
+        sb.append(name).append("{quantile=\"0.5\"} ").append(h.percentile(50)).append('\n');
+        sb.append(name).append("{quantile=\"0.95\"} ").append(h.percentile(95)).append('\n');
+        sb.append(name).append("{quantile=\"0.99\"} ").append(h.percentile(99)).append('\n');
+        sb.append(name).append("{quantile=\"1\"} ").append(h.getMax()).append('\n');
+        sb.append(name).append("_count ").append(h.getCount()).append('\n');
+    }
+
+    /*
+     MBean всегда, HTTP - если задано свойство elevator.metrics.port
+     ошибки не останавливают симуляцию, только печатаются
+     */
+    public static MetricsExporter start(SimulationEngine engine) {
+        MetricsExporter exporter = new MetricsExporter(engine);
+        try {
+            exporter.registerMBeans();
+        } catch (JMException ex) {
+            System.out.println("[МЕТРИКИ] JMX недоступен: " + ex.getMessage());
+        }
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (port != null) {
+            try {
+                exporter.startHttp(port);
+                System.out.println("[МЕТРИКИ] http://127.0.0.1:" + exporter.getHttpPort() + "/metrics");
+            } catch (IOException ex) {
+                System.out.println("[МЕТРИКИ] не удалось открыть порт " + port + ": " + ex.getMessage());
+            }
+        }
+        return exporter;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        unregisterAll();
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ ближайший лифт: длина маршрута с новым этажом, умноженная на
+ коэффициент направления и коэффициент загрузки
+ */
+public class NearestCarStrategy implements DispatchStrategy {
+
+    // коэффициенты по умолчанию
+    public static final NearestCarStrategy DEFAULT = new NearestCarStrategy(0.9, 1.2, 0.7, 0.5);
+
+    private final double sameDirection;     // этаж по пути (или лифт стоит)
+    private final double oppositeDirection; // этаж против движения
+    private final double sameFloor;         // лифт уже на этаже
+    private final double loadWeight;        // вес загрузки
+
+    public NearestCarStrategy(double sameDirection, double oppositeDirection,
+                              double sameFloor, double loadWeight) {
+        this.sameDirection = sameDirection;
+        this.oppositeDirection = oppositeDirection;
+        this.sameFloor = sameFloor;
+        this.loadWeight = loadWeight;
+    }
+
+    @Override
+    public int cost(Elevator e, int floor) {
+        synchronized (e) {
+            // Если лифт уже полон
+            if (e.currLoad >= e.capacity) {
+                return Integer.MAX_VALUE;
+            }
+
+            return weigh(e.routeCostWith(floor), floor, e.currFloor, e.state, e.currLoad, e.capacity);
+        }
+    }
+
+    /*
+     длина маршрута route лифта на этаже pos в состоянии state с load из capacity,
+     взятого на этаж floor, с коэффициентами направления и загрузки
+     (отдельно от Elevator - для парка FleetEngine)
+     */
+    int weigh(int route, int floor, int pos, Elevator.ElevSt state, int load, int capacity) {
+        double directionFactor;
+        if (floor > pos) {
+            directionFactor = state == Elevator.ElevSt.MOVING_DOWN ? oppositeDirection : sameDirection;
+        } else if (floor < pos) {
+            directionFactor = state == Elevator.ElevSt.MOVING_UP ? oppositeDirection : sameDirection;
+        } else {
+            directionFactor = sameFloor;
+        }
+
+        // чем больше людей уже внутри, тем "дороже"
+        double loadFactor = 1.0 + ((double) load / (double) capacity) * loadWeight;
+
+        return (int) (route * directionFactor * loadFactor);
+    }
+}
@@ -0,0 +1,344 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ перебор параметров методом Монте-Карло без GUI: каждая комбинация
+ (этажи, грузоподъёмности лифтов, вероятность вызова, стратегия, состав потока, стоянка,
+ бюджет совместного назначения) прогоняется
+ с несколькими зёрнами, прогоны независимы (свой движок и реестр) и идут
+ параллельно на всех ядрах; итог - CSV-таблица, строка на комбинацию
+
+   java ParameterSweep итог.csv [-f 10,20] [-cap 5-5-10,8-8-8] [-p 0.1,0.3]
+        [-s nearest,eta,nearest:1:1:1:0] [-traffic 0:0,0.5:0.2] [-r 100] [-steps 2000] [-seed 1]
+        [-park home,demand] [-batch 0,500] [-threads N] [-raw прогоны.csv]
+
+ -traffic: доли вызовов из лобби наверх и между этажами (см. SimulationEngine.setTraffic)
+ -batch: бюджет совместного назначения в мкс, 0 - по одному (см. Dispatcher.setBatchBudget)
+
+ зёрна одинаковы для всех комбинаций, поэтому комбинации сравниваются на одних и тех же вызовах
+ */
+public class ParameterSweep {
+
+    // одна комбинация параметров
+    static final class Config {
+        final int floors;
+        final int[] capacities;
+        final double probability;
+        final String strategy;
+        final double[] traffic; // доли: из лобби наверх, между этажами
+        final String parking;
+        final long batch; // мкс
+
+        Config(int floors, int[] capacities, double probability, String strategy, double[] traffic, String parking,
+               long batch) {
+            this.floors = floors;
+            this.capacities = capacities;
+            this.probability = probability;
+            this.strategy = strategy;
+            this.traffic = traffic;
+            this.parking = parking;
+            this.batch = batch;
+        }
+
+        String trafficText() {
+            return String.format(Locale.ROOT, "%.2f:%.2f", traffic[0], traffic[1]);
+        }
+
+        String capacitiesText() {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < capacities.length; i++) {
+                if (i > 0) {
+                    sb.append('-');
+                }
+                sb.append(capacities[i]);
+            }
+            return sb.toString();
+        }
+    }
+
+    // итог одного прогона
+    static final class Run {
+        final int config;
+        final long seed;
+        final long calls;
+        final long people;
+        final long delivered;
+        final long floorsTravelled;
+        final long stops;
+        final long wallNs;
+        final LatencyHistogram wait;
+        final LatencyHistogram journey;
+
+        Run(int config, long seed, SimulationEngine engine, long wallNs) {
+            this.config = config;
+            this.seed = seed;
+            this.calls = engine.getCallCount();
+            this.people = engine.getPeopleCount();
+            this.wallNs = wallNs;
+            PassengerMetrics m = engine.getPassengerMetrics();
+            this.delivered = m.getJourney().getCount();
+            this.wait = m.getWait();
+            this.journey = m.getJourney();
+            long floors = 0;
+            long stops = 0;
+            for (Elevator e : engine.getElevators()) {
+                floors += e.getStats().getFloorsTravelled();
+                stops += e.getStats().getStops();
+            }
+            this.floorsTravelled = floors;
+            this.stops = stops;
+        }
+    }
+
+    // сводка по всем зёрнам одной комбинации
+    static final class Summary {
+        int runs = 0;
+        long calls = 0;
+        long people = 0;
+        long delivered = 0;
+        long floorsTravelled = 0;
+        long stops = 0;
+        long wallNs = 0;
+        double p95Sum = 0;      // для среднего и разброса p95 ожидания между прогонами
+        double p95SumSq = 0;
+        final LatencyHistogram wait = new LatencyHistogram();
+        final LatencyHistogram journey = new LatencyHistogram();
+
+        void add(Run r) {
+            runs++;
+            calls += r.calls;
+            people += r.people;
+            delivered += r.delivered;
+            floorsTravelled += r.floorsTravelled;
+            stops += r.stops;
+            wallNs += r.wallNs;
+            double p95 = r.wait.percentile(95);
+            p95Sum += p95;
+            p95SumSq += p95 * p95;
+            wait.add(r.wait);
+            journey.add(r.journey);
+        }
+
+        double p95Sd() {
+            if (runs < 2) {
+                return 0;
+            }
+            double mean = p95Sum / runs;
+            return Math.sqrt(Math.max(0, (p95SumSq - runs * mean * mean) / (runs - 1)));
+        }
+    }
+
+    /*
+     один прогон: только своё состояние, общих изменяемых полей нет
+     */
+    static Run simulate(int index, Config c, long seed, int steps) {
+        SimulationEngine engine = SimulationEngine.create(c.floors, c.capacities, seed);
+        engine.setSimulationSteps(steps);
+        engine.setRequestProbability(c.probability);
+        engine.getDispatcher().setStrategy(DispatchStrategy.byName(c.strategy));
+        engine.setTraffic(c.traffic[0], c.traffic[1]);
+        engine.setParkingPolicy(ParkingPolicy.byName(c.parking, engine));
+        engine.getDispatcher().setBatchBudget(c.batch * 1000);
+        long start = System.nanoTime();
+        engine.run();
+        return new Run(index, seed, engine, System.nanoTime() - start);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 1) {
+            System.out.println("использование: java ParameterSweep итог.csv [-f этажи] [-cap 5-5-10,...] "
+                    + "[-p вероятности] [-s стратегии] [-traffic вверх:между,...] [-park стоянки] [-batch мкс] [-r зёрен] [-steps тактов] [-seed зерно] "
+                    + "[-threads потоков] [-raw прогоны.csv]");
+            return;
+        }
+        Path out = Paths.get(args[0]);
+        int[] floors = { ElevatorRequestSimulation.floorCount };
+        List<int[]> capacities = new ArrayList<>();
+        capacities.add(new int[]{ 5, 5, 10 });
+        double[] probabilities = { ElevatorRequestSimulation.requestProbability };
+        String[] strategies = { "nearest" };
+        List<double[]> traffics = new ArrayList<>();
+        traffics.add(new double[]{ 0, 0 });
+        String[] parkings = { "home" };
+        long[] batches = { 0 };
+        int reps = 100;
+        int steps = 2000;
+        long baseSeed = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path raw = null;
+
+        for (int i = 1; i + 1 < args.length; i += 2) {
+            String v = args[i + 1];
+            switch (args[i]) {
+                case "-f": floors = parseInts(v, ","); break;
+                case "-cap":
+                    capacities.clear();
+                    for (String pattern : v.split(",")) {
+                        capacities.add(parseInts(pattern, "-"));
+                    }
+                    break;
+                case "-p": probabilities = parseDoubles(v, ","); break;
+                case "-s": strategies = v.split(","); break;
+                case "-traffic":
+                    traffics.clear();
+                    for (String mix : v.split(",")) {
+                        double[] t = parseDoubles(mix, ":");
+                        if (t.length != 2) {
+                            throw new IllegalArgumentException("ожидалось вверх:между - " + mix);
+                        }
+                        traffics.add(t);
+                    }
+                    break;
+                case "-park": parkings = v.split(","); break;
+                case "-batch": batches = parseLongs(v, ","); break;
+                case "-r": reps = Integer.parseInt(v); break;
+                case "-steps": steps = Integer.parseInt(v); break;
+                case "-seed": baseSeed = Long.parseLong(v); break;
+                case "-threads": threads = Integer.parseInt(v); break;
+                case "-raw": raw = Paths.get(v); break;
+                default:
+                    throw new IllegalArgumentException("неизвестный параметр " + args[i]);
+            }
+        }
+
+        // ошибка в имени - сразу, а не в потоках
+        for (String s : strategies) {
+            DispatchStrategy.byName(s);
+        }
+        for (String park : parkings) {
+            ParkingPolicy.checkName(park);
+        }
+
+        List<Config> configs = new ArrayList<>();
+        for (int f : floors) {
+            for (int[] cap : capacities) {
+                for (double p : probabilities) {
+                    for (String s : strategies) {
+                        for (double[] t : traffics) {
+                            for (String park : parkings) {
+                                for (long b : batches) {
+                                    configs.add(new Config(f, cap, p, s, t, park, b));
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        int total = configs.size() * reps;
+        System.out.println("[ПЕРЕБОР] комбинаций=" + configs.size() + ", прогонов=" + total
+                + ", потоков=" + threads);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CompletionService<Run> done = new ExecutorCompletionService<>(pool);
+        for (int ci = 0; ci < configs.size(); ci++) {
+            for (int r = 0; r < reps; r++) {
+                int index = ci;
+                long seed = baseSeed + r;
+                int runSteps = steps;
+                done.submit(() -> simulate(index, configs.get(index), seed, runSteps));
+            }
+        }
+
+        Summary[] summaries = new Summary[configs.size()];
+        for (int i = 0; i < summaries.length; i++) {
+            summaries[i] = new Summary();
+        }
+        long start = System.nanoTime();
+        PrintWriter rawOut = raw == null ? null
+                : new PrintWriter(Files.newBufferedWriter(raw, StandardCharsets.UTF_8));
+        try {
+            if (rawOut != null) {
+                rawOut.println("floors,capacities,probability,strategy,traffic,parking,batch_us,seed,calls,people,delivered,"
+                        + "wait_p50,wait_p95,wait_p99,wait_max,journey_p95,floors_travelled,stops,wall_ms");
+            }
+            // результаты сводятся в этом потоке по мере готовности
+            for (int n = 1; n <= total; n++) {
+                Run r = done.take().get();
+                summaries[r.config].add(r);
+                if (rawOut != null) {
+                    Config c = configs.get(r.config);
+                    rawOut.println(String.format(Locale.ROOT, "%d,%s,%.4f,%s,%s,%s,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%.2f",
+                            c.floors, c.capacitiesText(), c.probability, c.strategy, c.trafficText(), c.parking, c.batch,
+                            r.seed,
+                            r.calls, r.people, r.delivered,
+                            r.wait.percentile(50), r.wait.percentile(95), r.wait.percentile(99), r.wait.getMax(),
+                            r.journey.percentile(95), r.floorsTravelled, r.stops, r.wallNs / 1e6));
+                }
+                if (n % Math.max(1, total / 10) == 0) {
+                    System.out.println(String.format(Locale.ROOT, "[ПЕРЕБОР] %d/%d, %.1f с",
+                            n, total, (System.nanoTime() - start) / 1e9));
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+            if (rawOut != null) {
+                rawOut.close();
+            }
+        }
+
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out, StandardCharsets.UTF_8))) {
+            w.println("floors,capacities,probability,strategy,traffic,parking,batch_us,runs,calls_mean,people_mean,delivered_ratio,"
+                    + "wait_mean,wait_p50,wait_p95,wait_p95_sd,wait_p99,wait_max,"
+                    + "journey_p50,journey_p95,journey_p99,floors_per_person,stops_per_person,wall_ms_mean");
+            for (int i = 0; i < configs.size(); i++) {
+                Config c = configs.get(i);
+                Summary s = summaries[i];
+                w.println(String.format(Locale.ROOT,
+                        "%d,%s,%.4f,%s,%s,%s,%d,%d,%.1f,%.1f,%.4f,%.1f,%d,%d,%.1f,%d,%d,%d,%d,%d,%.3f,%.3f,%.2f",
+                        c.floors, c.capacitiesText(), c.probability, c.strategy, c.trafficText(), c.parking, c.batch,
+                        s.runs,
+                        (double) s.calls / s.runs, (double) s.people / s.runs,
+                        s.people == 0 ? 1.0 : (double) s.delivered / s.people,
+                        s.wait.getMean(), s.wait.percentile(50), s.wait.percentile(95), s.p95Sd(),
+                        s.wait.percentile(99), s.wait.getMax(),
+                        s.journey.percentile(50), s.journey.percentile(95), s.journey.percentile(99),
+                        s.delivered == 0 ? 0.0 : (double) s.floorsTravelled / s.delivered,
+                        s.delivered == 0 ? 0.0 : (double) s.stops / s.delivered,
+                        s.wallNs / 1e6 / s.runs));
+            }
+        }
+        System.out.println(String.format(Locale.ROOT, "[ПЕРЕБОР] готово за %.1f с: %s",
+                (System.nanoTime() - start) / 1e9, out));
+    }
+
+    private static int[] parseInts(String v, String sep) {
+        String[] parts = v.split(sep);
+        int[] res = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            res[i] = Integer.parseInt(parts[i].trim());
+        }
+        return res;
+    }
+
+    private static long[] parseLongs(String v, String sep) {
+        String[] parts = v.split(sep);
+        long[] res = new long[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            res[i] = Long.parseLong(parts[i].trim());
+        }
+        return res;
+    }
+
+    private static double[] parseDoubles(String v, String sep) {
+        String[] parts = v.split(sep);
+        double[] res = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            res[i] = Double.parseDouble(parts[i].trim());
+        }
+        return res;
+    }
+}
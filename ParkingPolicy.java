@@ -0,0 +1,53 @@
+/**
+ куда ехать лифту, у которого нет заявок (стоянка)
+ parkingFloor вызывается из step() и isIdle() под монитором лифта, из потоков лифтов,
+ поэтому реализация не должна брать мониторы и ничего считать - только читать
+ готовое; пересчёт - в refresh, его раз в такт вызывает движок в своём потоке
+ */
+public interface ParkingPolicy {
+
+    // как раньше: все стоят на домашнем этаже
+    ParkingPolicy HOME = Elevator::getHomeFloor;
+
+    int parkingFloor(Elevator e);
+
+    // такт движка в момент now (поток движка, лифты в это время могут шагать)
+    default void refresh(long now) {
+    }
+
+    /*
+     стоянка по имени: home или demand (demand:секунд - как часто пересчитывать)
+     */
+    static ParkingPolicy byName(String name, SimulationEngine engine) {
+        long refresh = parse(name);
+        if (refresh < 0) {
+            return HOME;
+        }
+        return new DemandParking(engine.getBuilding(), engine.getCallRates(), refresh);
+    }
+
+    // проверить имя без движка (ошибка в имени - до запуска прогонов)
+    static void checkName(String name) {
+        parse(name);
+    }
+
+    // -1 - home, иначе период пересчёта demand, мс
+    private static long parse(String name) {
+        String[] parts = name.split(":");
+        switch (parts[0]) {
+            case "home":
+                if (parts.length == 1) {
+                    return -1;
+                }
+                break;
+            case "demand":
+                if (parts.length <= 2) {
+                    return parts.length == 2 ? Long.parseLong(parts[1]) * 1000L : DemandParking.DEFAULT_REFRESH;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new IllegalArgumentException("неизвестная стоянка " + name);
+    }
+}
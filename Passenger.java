@@ -0,0 +1,53 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ один пассажир: когда и где вызвал лифт, куда едет и когда сел
+ при пересадках origin остаётся первым этажом, а leg - этаж выхода из текущего лифта
+ */
+public final class Passenger {
+
+    public final long arrival;     // виртуальное время вызова, мс
+    public final int origin;       // этаж вызова
+    public final int destination;  // этаж назначения
+    long boarded = -1;             // когда сел в лифт (-1 - ещё ждёт)
+    int leg;                       // где выйдет из текущего лифта
+    volatile int assigned;         // лифт, назначенный диспетчером (0 - любой)
+    volatile int car;              // лифт, который забрал пассажира (0 - ещё ждёт)
+
+    public Passenger(long arrival, int origin, int destination) {
+        this.arrival = arrival;
+        this.origin = origin;
+        this.destination = destination;
+    }
+
+    public long getBoarded() {
+        return boarded;
+    }
+
+    // для контрольной точки (см. Checkpoint)
+    void write(DataOutput out) throws IOException {
+        out.writeLong(arrival);
+        out.writeInt(origin);
+        out.writeInt(destination);
+        out.writeLong(boarded);
+        out.writeInt(leg);
+        out.writeInt(assigned);
+        out.writeInt(car);
+    }
+
+    static Passenger read(DataInput in) throws IOException {
+        Passenger p = new Passenger(in.readLong(), in.readInt(), in.readInt());
+        p.boarded = in.readLong();
+        p.leg = in.readInt();
+        p.assigned = in.readInt();
+        p.car = in.readInt();
+        return p;
+    }
+
+    @Override
+    public String toString() {
+        return "Passenger{t=" + arrival + ", " + origin + "->" + destination + ", boarded=" + boarded + "}";
+    }
+}
@@ -0,0 +1,81 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+/**
+ метрики пассажиров: ожидание (вызов - посадка), поездка (посадка - высадка)
+ и вся дорога (вызов - высадка), в мс виртуального времени
+ */
+public class PassengerMetrics {
+
+    private final LongSupplier clock;
+
+    private final LatencyHistogram wait = new LatencyHistogram();
+    private final LatencyHistogram ride = new LatencyHistogram();
+    private final LatencyHistogram journey = new LatencyHistogram();
+
+    /**
+    @param clock // источник времени (виртуальное время движка)
+     */
+    public PassengerMetrics(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    // пассажир сел в лифт (ожидание считается до первой посадки, пересадка его не меняет)
+    public void boarded(Passenger p) {
+        if (p.boarded >= 0) {
+            return;
+        }
+        long t = clock.getAsLong();
+        p.boarded = t;
+        wait.record(t - p.arrival);
+    }
+
+    // пассажир вышел
+    public void delivered(Passenger p) {
+        long t = clock.getAsLong();
+        ride.record(t - p.boarded);
+        journey.record(t - p.arrival);
+    }
+
+    public LatencyHistogram getWait() {
+        return wait;
+    }
+
+    public LatencyHistogram getRide() {
+        return ride;
+    }
+
+    public LatencyHistogram getJourney() {
+        return journey;
+    }
+
+    void writeState(DataOutput out) throws IOException {
+        wait.writeState(out);
+        ride.writeState(out);
+        journey.writeState(out);
+    }
+
+    void readState(DataInput in) throws IOException {
+        wait.readState(in);
+        ride.readState(in);
+        journey.readState(in);
+    }
+
+    public void reset() {
+        wait.reset();
+        ride.reset();
+        journey.reset();
+    }
+
+    public String report() {
+        return "ожидание: " + wait.summary() + " мс\n"
+                + "поездка:  " + ride.summary() + " мс\n"
+                + "в пути:   " + journey.summary() + " мс";
+    }
+}
@@ -0,0 +1,185 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ детерминированные шаги лифтов в несколько потоков (режим PHASED)
+
+ такт делится на фазы:
+ 1. в одном потоке по порядку номеров: кому пора шагать и какие этажи реестра
+    может тронуть его шаг (Elevator.footprint); лифт попадает в волну на единицу
+    больше последней волны на любом из своих этажей
+ 2. волны по очереди, лифты одной волны шагают параллельно: этажи у них не
+    пересекаются, а сообщения диспетчеру и журнал откладываются (StepOutbox),
+    поэтому порядок внутри волны ни на что не влияет; конец волны - барьер
+ 3. в одном потоке по порядку номеров: отложенное выполняется
+
+ из двух лифтов с общим этажом раньше шагает лифт с меньшим номером, как при
+ шагах в одном потоке, поэтому результат не зависит от числа потоков
+ */
+public class PhasedStepper {
+
+    // волну меньше этого размера шагаем в потоке движка (меньше накладных расходов)
+    public static final int PARALLEL_THRESHOLD = 64;
+
+    private final Elevator[] elevators;
+    private final Dispatcher dispatcher;
+    private final int threads;
+    private final ExecutorService pool;
+
+    private final StepOutbox[] outboxes;
+    private final long[] nextStep;     // когда лифту шагать (после дверей - позже)
+    private final long[] doorsBefore;  // открывания дверей до шага
+    private final int[] wave;          // волна лифта в текущем такте, 0 - не шагает
+    private final int[] floorWave;     // последняя волна, тронувшая этаж
+    private final int[] order;         // лифты такта, упорядоченные по волнам
+    private int[] waveStart = new int[2];
+    private final int[] footprint = new int[7];
+
+    /**
+    @param building // здание (лифты и число этажей)
+    @param dispatcher // диспетчер, которому идут отложенные сообщения
+    @param log // журнал событий
+    @param threads // потоков для шагов (1 - всё в потоке движка)
+     */
+    public PhasedStepper(Building building, Dispatcher dispatcher, EventSink log, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("потоков должно быть не меньше 1: " + threads);
+        }
+        this.elevators = building.getElevators();
+        this.dispatcher = dispatcher;
+        this.threads = threads;
+        this.pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        int n = elevators.length;
+        this.outboxes = new StepOutbox[n];
+        for (int i = 0; i < n; i++) {
+            outboxes[i] = new StepOutbox(log);
+        }
+        this.nextStep = new long[n];
+        this.doorsBefore = new long[n];
+        this.wave = new int[n];
+        this.order = new int[n];
+        this.floorWave = new int[building.floorCount() + 1];
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /*
+     один такт в момент now; возвращает, сколько лифтов шагнуло
+     */
+    public int tick(long now) {
+        // фаза 1: волны
+        Arrays.fill(floorWave, 0);
+        int waves = 0;
+        int stepping = 0;
+        for (int i = 0; i < elevators.length; i++) {
+            Elevator e = elevators[i];
+            wave[i] = 0;
+            if (nextStep[i] > now || e.isIdle()) {
+                continue;
+            }
+            int n = e.footprint(footprint);
+            int w = 0;
+            for (int k = 0; k < n; k++) {
+                w = Math.max(w, floorWave[footprint[k]]);
+            }
+            w++;
+            for (int k = 0; k < n; k++) {
+                floorWave[footprint[k]] = w;
+            }
+            wave[i] = w;
+            waves = Math.max(waves, w);
+            doorsBefore[i] = e.getDoorOpenings();
+            stepping++;
+        }
+        if (stepping == 0) {
+            return 0;
+        }
+
+        // лифты по волнам (сортировка подсчётом, внутри волны - по номеру)
+        if (waveStart.length < waves + 2) {
+            waveStart = new int[waves + 2];
+        }
+        Arrays.fill(waveStart, 0, waves + 2, 0);
+        for (int i = 0; i < elevators.length; i++) {
+            if (wave[i] > 0) {
+                waveStart[wave[i] + 1]++;
+            }
+        }
+        for (int w = 1; w <= waves; w++) {
+            waveStart[w + 1] += waveStart[w];
+        }
+        int[] fill = Arrays.copyOf(waveStart, waves + 1);
+        for (int i = 0; i < elevators.length; i++) {
+            if (wave[i] > 0) {
+                order[fill[wave[i]]++] = i;
+            }
+        }
+
+        // фаза 2: волны по очереди
+        for (int w = 1; w <= waves; w++) {
+            runWave(waveStart[w], waveStart[w + 1]);
+        }
+
+        // фаза 3: отложенное по порядку номеров, следующий шаг
+        for (int i = 0; i < elevators.length; i++) {
+            if (wave[i] == 0) {
+                continue;
+            }
+            Elevator e = elevators[i];
+            outboxes[i].commit(dispatcher, e);
+            nextStep[i] = e.getDoorOpenings() != doorsBefore[i]
+                    ? now + SimulationEngine.DOOR_TIME + SimulationEngine.STEP_TIME
+                    : now + SimulationEngine.STEP_TIME;
+        }
+        return stepping;
+    }
+
+    // шаги лифтов order[from..to); при нескольких потоках - кусками, с ожиданием всех
+    private void runWave(int from, int to) {
+        int n = to - from;
+        if (pool == null || n < PARALLEL_THRESHOLD) {
+            stepRange(from, to);
+            return;
+        }
+        int parts = Math.min(threads, n);
+        List<Callable<Void>> tasks = new ArrayList<>(parts);
+        for (int p = 0; p < parts; p++) {
+            int a = from + (int) ((long) n * p / parts);
+            int b = from + (int) ((long) n * (p + 1) / parts);
+            tasks.add(() -> {
+                stepRange(a, b);
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("шаг лифта завершился ошибкой", ex.getCause());
+        }
+    }
+
+    private void stepRange(int from, int to) {
+        for (int k = from; k < to; k++) {
+            int i = order[k];
+            elevators[i].step(outboxes[i]);
+        }
+    }
+
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
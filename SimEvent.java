@@ -0,0 +1,79 @@
+/**
+ типы событий симуляции, которые пишутся в журнал
+ у каждого события свой уровень и текст (поля: elev, floor, a, b)
+ */
+public enum SimEvent {
+    CALL(Level.INFO),     // floor: этаж, a: сколько человек вызвали лифт, b: куда едут
+    ASSIGN(Level.DEBUG),  // диспетчер назначил этаж floor лифту elev
+    REQUEST(Level.DEBUG), // лифт получил запрос на этаж floor
+    MOVE(Level.DEBUG),    // движение к этажу floor, a: текущий этаж
+    ARRIVE(Level.INFO),   // приехали на этаж floor, a: загрузка
+    SKIP(Level.DEBUG),    // этаж floor уже пуст - пропускаем
+    PICKUP(Level.INFO),   // на этаже floor подобрали a человек, b: загрузка
+    RETURN(Level.DEBUG),  // возврат к лобби, сейчас на этаже floor
+    UNLOAD(Level.INFO),   // выгрузка на этаже floor, a: сколько вышло, b: загрузка
+    STOPPED(Level.INFO);  // поток лифта остановлен
+
+    // уровни журнала
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARN,
+        OFF
+    }
+
+    public final Level level;
+
+    SimEvent(Level level) {
+        this.level = level;
+    }
+
+    /*
+     текст события (как раньше печаталось в консоль)
+     */
+    public void format(StringBuilder sb, long time, int elev, int floor, int a, int b) {
+        sb.append("[t=").append(time).append("] ");
+        if (elev > 0) {
+            sb.append("[Лифт ").append(elev).append("] ");
+        } else {
+            sb.append("[СИМ] ");
+        }
+        switch (this) {
+            case CALL:
+                sb.append(a).append(" чел. вызвали лифт на этаж ").append(floor);
+                if (b > 0) {
+                    sb.append(" (едут на ").append(b).append(')');
+                }
+                break;
+            case ASSIGN:
+                sb.append("назначен этаж ").append(floor);
+                break;
+            case REQUEST:
+                sb.append("Получен запрос на этаж ").append(floor);
+                break;
+            case MOVE:
+                sb.append("Движение к этажу ").append(floor).append(" (текущий ").append(a).append(')');
+                break;
+            case ARRIVE:
+                sb.append("Приехали на этаж ").append(floor).append(", загрузка=").append(a);
+                break;
+            case SKIP:
+                sb.append("Этаж ").append(floor).append(" пуст — пропускаем");
+                break;
+            case PICKUP:
+                sb.append("подобрал ").append(a).append(" чел. на этаже ").append(floor)
+                        .append("; загрузка=").append(b);
+                break;
+            case RETURN:
+                sb.append("возвращается к этажу ").append(floor);
+                break;
+            case UNLOAD:
+                sb.append(floor).append(" этаж: выгрузка, вышло ").append(a);
+                break;
+            case STOPPED:
+                sb.append("Остановлен.");
+                break;
+        }
+        sb.append('\n');
+    }
+}
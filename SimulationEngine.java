@@ -0,0 +1,751 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ дискретно-событийный движок симуляции
+ время виртуальное (мс), события лежат в очереди с приоритетом по времени,
+ поэтому без привязки к реальным часам прогон идёт со скоростью процессора
+ */
+public class SimulationEngine {
+
+    // типы событий
+    public enum EventType {
+        GENERATE,      // такт генератора заявок
+        CALL,          // люди вызвали лифт на этаж
+        SOURCE_CALL,   // очередной вызов из внешнего источника (CallSource)
+        ELEVATOR_STEP, // лифт делает один шаг step() (проезд одного этажа)
+        DOOR_CYCLE,    // двери открылись/закрылись после посадки или высадки
+        PHASE,         // такт режима PHASED: все лифты, кому пора, шагают волнами
+        DISPATCH       // совместное назначение вызовов, накопленных к этому моменту (см. scheduleDispatch)
+    }
+
+    // длительности в виртуальных мс
+    public static final long STEP_TIME = 100; // шаг лифта (раньше Thread.sleep(100))
+    public static final long TICK_TIME = ElevatorRequestSimulation.REFRESH_DELAY; // такт генератора
+    public static final long DOOR_TIME = 300; // цикл дверей
+
+    // системное свойство со стоянкой лифтов (-Delevator.parking=demand)
+    public static final String PARKING_PROPERTY = "elevator.parking";
+    // число потоков для шагов лифтов: с ним main идёт в режиме PHASED
+    public static final String THREADS_PROPERTY = "elevator.threads";
+    // бюджет совместного назначения вызовов за такт, мкс (см. Dispatcher.setBatchBudget)
+    public static final String BATCH_PROPERTY = "elevator.batch";
+    // профиль трафика вместо генератора по тактам (см. TrafficProfile.byName)
+    public static final String TRAFFIC_PROPERTY = "elevator.traffic";
+
+    /*
+     наблюдатель за движком (например, панель отрисовки)
+     */
+    public interface Listener {
+        void onTick(SimulationEngine engine, long time);
+
+        default void onFinish(SimulationEngine engine) {
+        }
+    }
+
+    static final class Event implements Comparable<Event> {
+        final long time;
+        final long seq;  // порядок добавления, чтобы события одного времени шли по очереди
+        final EventType type;
+        final int elev;   // индекс лифта
+        final int floor;
+        final int people;
+
+        Event(long time, long seq, EventType type, int elev, int floor, int people) {
+            this.time = time;
+            this.seq = seq;
+            this.type = type;
+            this.elev = elev;
+            this.floor = floor;
+            this.people = people;
+        }
+
+        @Override
+        public int compareTo(Event o) {
+            if (time != o.time) {
+                return Long.compare(time, o.time);
+            }
+            return Long.compare(seq, o.seq);
+        }
+    }
+
+    private final Building building;
+    private final Elevator[] elevators;
+    private final HallCallRegistry hallCalls;
+    private final LcgRandom rand; // состояние - одно число (Checkpoint)
+    private final Dispatcher dispatcher;
+    private final PassengerMetrics metrics = new PassengerMetrics(this::now);
+    private final CallRateEstimator callRates;
+    // стоянка лифтов без заявок (пересчитывается на такте)
+    private ParkingPolicy parking = ParkingPolicy.HOME;
+
+    private final PriorityQueue<Event> queue = new PriorityQueue<>();
+    private final boolean[] scheduled; // есть ли у лифта запланированный шаг
+    private final List<Listener> listeners = new ArrayList<>();
+
+    private int simulationSteps = ElevatorRequestSimulation.simulationSteps;
+    private double requestProbability = ElevatorRequestSimulation.requestProbability;
+    // доли вызовов генератора из лобби наверх и между этажами (остальные - в лобби)
+    private double upShare = 0;
+    private double interShare = 0;
+    private double realtimeFactor = 0; // 0 - без ожидания, 1 - виртуальная мс = реальная мс
+    private ExecutionMode mode = ExecutionMode.ENGINE;
+    private int stepThreads = 1; // потоков для шагов в режиме PHASED
+    private PhasedStepper stepper;
+    private EventSink log = EventSink.NOOP;
+    // публиковать ли снимок здания каждый такт (нужно только отрисовке)
+    private boolean publishSnapshots = false;
+
+    // внешний источник вызовов (вместо случайного генератора) и его следующий вызов
+    private CallSource callSource;
+    private HallCall nextSourceCall;
+
+    private volatile long now = 0; // читается журналом из потоков лифтов
+    private long seq = 0;
+    private int tick = 0;
+    private boolean started = false; // первые события уже в очереди (прогон мог встать на паузу)
+    private boolean dispatchScheduled = false; // DISPATCH уже в очереди
+
+    // статистика прогона
+    private long eventCount = 0;
+    private long callCount = 0;
+    private long peopleCount = 0;
+
+    /**
+    @param building // здание: лифты, реестр вызовов и флаг работы
+    @param seed // зерно генератора заявок
+     */
+    public SimulationEngine(Building building, long seed) {
+        this.building  = building;
+        this.elevators = building.getElevators();
+        this.hallCalls = building.getHallCalls();
+        this.rand      = new LcgRandom(seed);
+        this.scheduled = new boolean[elevators.length];
+        this.dispatcher = new Dispatcher(elevators, hallCalls);
+        this.callRates = new CallRateEstimator(hallCalls.floorCount());
+        for (Elevator e : elevators) {
+            e.setMetrics(metrics);
+        }
+    }
+
+    // лифты по умолчанию: 3 лифта на 5, 5 и 10 человек
+    public static SimulationEngine createDefault(long seed) {
+        return new SimulationEngine(Building.createDefault(), seed);
+    }
+
+    /**
+    @param floors // количество этажей
+    @param capacities // грузоподъёмность каждого лифта
+    @param seed // зерно генератора заявок
+     */
+    public static SimulationEngine create(int floors, int[] capacities, long seed) {
+        return new SimulationEngine(new Building(floors, capacities), seed);
+    }
+
+    /*
+     раз в такт снимать состояние здания и публиковать его (Building.getSnapshot),
+     чтобы отрисовка не брала мониторы лифтов
+     */
+    public void setPublishSnapshots(boolean publish) {
+        this.publishSnapshots = publish;
+    }
+
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    public void setSimulationSteps(int steps) {
+        this.simulationSteps = steps;
+    }
+
+    // вероятность вызова на такт генератора
+    public void setRequestProbability(double requestProbability) {
+        this.requestProbability = requestProbability;
+    }
+
+    /*
+     состав потока генератора: доля up едет из лобби на случайный этаж, доля inter -
+     между этажами (в пределах одного банка), остальные - с этажа в лобби
+     */
+    public void setTraffic(double up, double inter) {
+        if (up < 0 || inter < 0 || up + inter > 1) {
+            throw new IllegalArgumentException("доли потока должны быть от 0 до 1: " + up + ", " + inter);
+        }
+        this.upShare = up;
+        this.interShare = inter;
+    }
+
+    // где стоят лифты без заявок (см. ParkingPolicy, DemandParking)
+    public void setParkingPolicy(ParkingPolicy parking) {
+        this.parking = parking;
+        for (Elevator e : elevators) {
+            e.setParkingPolicy(parking);
+        }
+    }
+
+    public void setRealtimeFactor(double factor) {
+        this.realtimeFactor = factor;
+    }
+
+    // журнал событий для движка, диспетчера и всех лифтов
+    public void setEventSink(EventSink log) {
+        this.log = log;
+        dispatcher.setEventSink(log);
+        for (Elevator e : elevators) {
+            e.setEventSink(log);
+        }
+    }
+
+    /*
+     вызовы берутся из источника, а не из генератора
+     прогон идёт, пока источник не кончится и все не будут развезены
+     (или пока не выйдет simulationSteps тактов)
+     */
+    public void setCallSource(CallSource callSource) {
+        this.callSource = callSource;
+    }
+
+    public EventSink getEventSink() {
+        return log;
+    }
+
+    /*
+     в режимах с потоками лифты шагают сами (см. ElevatorRunner),
+     движок только генерирует и назначает вызовы; нужен realtimeFactor > 0
+     */
+    public void setMode(ExecutionMode mode) {
+        this.mode = mode;
+    }
+
+    // потоков для шагов лифтов в режиме PHASED (на результат не влияет)
+    public void setStepThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("потоков должно быть не меньше 1: " + threads);
+        }
+        this.stepThreads = threads;
+    }
+
+    // каждый лифт шагает своим событием (режим ENGINE)
+    private boolean stepsElevators() {
+        return mode == ExecutionMode.ENGINE;
+    }
+
+    public long now() {
+        return now;
+    }
+
+    public Building getBuilding() {
+        return building;
+    }
+
+    public Elevator[] getElevators() {
+        return elevators;
+    }
+
+    public long getEventCount() {
+        return eventCount;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public HallCallRegistry getHallCalls() {
+        return hallCalls;
+    }
+
+    public long getPeopleCount() {
+        return peopleCount;
+    }
+
+    // частота вызовов по этажам (для стоянки по спросу)
+    public CallRateEstimator getCallRates() {
+        return callRates;
+    }
+
+    // время ожидания и поездки пассажиров (можно читать во время прогона)
+    public PassengerMetrics getPassengerMetrics() {
+        return metrics;
+    }
+
+    // добавить вызов в очередь (например, из внешнего источника)
+    public void scheduleCall(long time, int floor, int people) {
+        schedule(time, EventType.CALL, -1, floor, people);
+    }
+
+    private void schedule(long time, EventType type, int elev, int floor, int people) {
+        queue.add(new Event(time, seq++, type, elev, floor, people));
+    }
+
+    private void scheduleStep(int i, long time) {
+        scheduled[i] = true;
+        schedule(time, EventType.ELEVATOR_STEP, i, 0, 0);
+    }
+
+    /*
+     при совместном назначении вызовы и освободившиеся этажи не назначаются сразу:
+     DISPATCH ставится на тот же момент после уже поставленных событий, поэтому
+     всё, что случилось в этот момент (шаги лифтов, вызов генератора), решается
+     одной задачей назначения, а ждать вызовам не приходится
+     */
+    private void scheduleDispatch() {
+        if (!dispatchScheduled) {
+            dispatchScheduled = true;
+            schedule(now, EventType.DISPATCH, -1, 0, 0);
+        }
+    }
+
+    /*
+     основной цикл: берём ближайшее событие, переводим часы, обрабатываем
+     */
+    public void run() {
+        runUntil(Long.MAX_VALUE);
+    }
+
+    /*
+     прогон до момента until включительно: если события ещё остались, движок встаёт
+     на паузу (можно снять Checkpoint) и продолжает следующим run или runUntil
+     */
+    public void runUntil(long until) {
+        building.setRunning(true);
+        if (!started) {
+            started = true;
+            schedule(now, EventType.GENERATE, -1, 0, 0);
+            if (callSource != null) {
+                scheduleSourceCall();
+            }
+            if (stepsElevators()) {
+                for (int i = 0; i < elevators.length; i++) {
+                    scheduleStep(i, now + STEP_TIME);
+                }
+            }
+        }
+        if (mode == ExecutionMode.PHASED && stepper == null) {
+            stepper = new PhasedStepper(building, dispatcher, log, stepThreads);
+            schedule(now + STEP_TIME, EventType.PHASE, -1, 0, 0);
+        }
+
+        // после паузы реальное время отсчитывается так, будто прогон не прерывался
+        long wallStart = System.nanoTime() - (realtimeFactor > 0 ? (long) (now / realtimeFactor * 1_000_000L) : 0);
+        while (building.isRunning() && !queue.isEmpty()) {
+            if (queue.peek().time > until) {
+                return;
+            }
+            Event ev = queue.poll();
+            now = ev.time;
+            if (realtimeFactor > 0 && !pace(wallStart)) {
+                break;
+            }
+            eventCount++;
+
+            switch (ev.type) {
+                case GENERATE:
+                    generate();
+                    break;
+                case CALL:
+                    call(ev.floor, ev.people, Building.LOBBY);
+                    break;
+                case SOURCE_CALL:
+                    call(nextSourceCall.floor, nextSourceCall.people,
+                            nextSourceCall.destination > 0 ? nextSourceCall.destination : Building.LOBBY);
+                    scheduleSourceCall();
+                    break;
+                case ELEVATOR_STEP:
+                    stepElevator(ev.elev);
+                    break;
+                case DOOR_CYCLE:
+                    scheduleStep(ev.elev, now + STEP_TIME);
+                    break;
+                case PHASE:
+                    phase();
+                    break;
+                case DISPATCH:
+                    dispatchScheduled = false;
+                    dispatchRequests();
+                    if (stepsElevators()) {
+                        wakeElevators();
+                    }
+                    break;
+            }
+        }
+
+        if (stepper != null) {
+            stepper.close();
+            stepper = null;
+        }
+        building.setRunning(false);
+        if (publishSnapshots) {
+            building.publish(now);
+        }
+        for (Listener l : listeners) {
+            l.onFinish(this);
+        }
+    }
+
+    // в очереди всегда не больше одного вызова из источника
+    private void scheduleSourceCall() {
+        nextSourceCall = callSource.next();
+        if (nextSourceCall != null) {
+            schedule(Math.max(now, nextSourceCall.time), EventType.SOURCE_CALL, -1,
+                    nextSourceCall.floor, nextSourceCall.people);
+        }
+    }
+
+    // ждём, пока реальное время догонит виртуальное
+    private boolean pace(long wallStart) {
+        long target = wallStart + (long) (now / realtimeFactor * 1_000_000L);
+        long delay = target - System.nanoTime();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay / 1_000_000L, (int) (delay % 1_000_000L));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     такт генератора: с вероятностью requestProbability появляется заявка
+     */
+    private void generate() {
+        tick++;
+        parking.refresh(now);
+        if (dispatcher.hasPending()) {
+            if (dispatcher.isBatching()) {
+                scheduleDispatch();
+            } else if (!stepsElevators()) {
+                // этажи, освобождённые потоками лифтов за прошедший такт
+                dispatchRequests();
+            }
+        }
+        if (callSource == null && rand.nextDouble() < requestProbability) {
+            int[] callFloors = building.getCallFloors();
+            int requestFloor = callFloors[rand.nextInt(callFloors.length)];
+            int people = ElevatorRequestSimulation.peoplePerRequestMin
+                    + rand.nextInt(ElevatorRequestSimulation.peoplePerRequestMax
+                    - ElevatorRequestSimulation.peoplePerRequestMin + 1);
+            int destination = Building.LOBBY;
+            if (upShare + interShare > 0) {
+                double r = rand.nextDouble();
+                if (r < upShare) {
+                    destination = requestFloor;
+                    requestFloor = Building.LOBBY;
+                } else if (r < upShare + interShare) {
+                    int other = callFloors[rand.nextInt(callFloors.length)];
+                    if (other != requestFloor && building.sameBank(requestFloor, other)) {
+                        destination = other;
+                    }
+                }
+            }
+            call(requestFloor, people, destination);
+        }
+
+        if (publishSnapshots) {
+            building.publish(now);
+        }
+        for (Listener l : listeners) {
+            l.onTick(this, now);
+        }
+
+        if (tick < simulationSteps && !(callSource != null && sourceDone())) {
+            schedule(now + TICK_TIME, EventType.GENERATE, -1, 0, 0);
+        } else {
+            building.setRunning(false);
+        }
+    }
+
+    // источник кончился и все развезены
+    private boolean sourceDone() {
+        if (nextSourceCall != null || hallCalls.totalWaiting() > 0) {
+            return false;
+        }
+        for (Elevator e : elevators) {
+            if (!e.isIdle()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void call(int floor, int people, int destination) {
+        callCount++;
+        peopleCount += people;
+        log.emit(SimEvent.CALL, 0, floor, people, destination);
+        callRates.record(floor, people, now);
+        dispatcher.call(floor, destination, people, now);
+        if (dispatcher.isBatching()) {
+            scheduleDispatch();
+        } else {
+            dispatchRequests();
+        }
+        if (stepsElevators()) {
+            wakeElevators();
+        }
+    }
+
+    private void stepElevator(int i) {
+        scheduled[i] = false;
+        Elevator e = elevators[i];
+        long doorsBefore = e.getDoorOpenings();
+        e.step();
+
+        if (e.getDoorOpenings() != doorsBefore) {
+            // была посадка или высадка - двери
+            scheduled[i] = true;
+            schedule(now + DOOR_TIME, EventType.DOOR_CYCLE, i, e.currFloor, 0);
+        } else if (!e.isIdle()) {
+            scheduleStep(i, now + STEP_TIME);
+        }
+        // простаивающий лифт не шагает, пока ему не назначат заявку
+
+        // лифт мог освободить этаж, где ещё остались люди
+        if (dispatcher.hasPending()) {
+            if (dispatcher.isBatching()) {
+                scheduleDispatch();
+            } else {
+                dispatchRequests();
+                wakeElevators();
+            }
+        }
+    }
+
+    // такт режима PHASED: шаги лифтов, затем назначение освободившихся этажей
+    private void phase() {
+        stepper.tick(now);
+        if (dispatcher.hasPending()) {
+            dispatchRequests();
+        }
+        schedule(now + STEP_TIME, EventType.PHASE, -1, 0, 0);
+    }
+
+    /*
+     состояние движка для контрольной точки (см. Checkpoint): часы, счётчики, генератор,
+     очередь событий, затем реестр вызовов, лифты, диспетчер и метрики
+     настройки (стратегия, стоянка, журнал, наблюдатели) в состояние не входят
+     */
+    void writeState(DataOutput out) throws IOException {
+        if (mode != ExecutionMode.ENGINE) {
+            throw new IllegalStateException("контрольная точка - только в режиме ENGINE, сейчас " + mode);
+        }
+        if (callSource != null) {
+            throw new IllegalStateException("контрольная точка с внешним источником вызовов не поддерживается");
+        }
+        if (started && building.isRunning() && !queue.isEmpty() && queue.peek().time <= now) {
+            throw new IllegalStateException("движок не на паузе (см. runUntil)");
+        }
+        out.writeLong(now);
+        out.writeLong(seq);
+        out.writeInt(tick);
+        out.writeBoolean(started);
+        out.writeLong(eventCount);
+        out.writeLong(callCount);
+        out.writeLong(peopleCount);
+        out.writeInt(simulationSteps);
+        out.writeDouble(requestProbability);
+        out.writeDouble(upShare);
+        out.writeDouble(interShare);
+        out.writeLong(rand.getState());
+
+        out.writeInt(queue.size());
+        for (Event ev : queue) {
+            out.writeLong(ev.time);
+            out.writeLong(ev.seq);
+            out.writeByte(ev.type.ordinal());
+            out.writeInt(ev.elev);
+            out.writeInt(ev.floor);
+            out.writeInt(ev.people);
+        }
+        for (boolean b : scheduled) {
+            out.writeBoolean(b);
+        }
+
+        hallCalls.writeState(out);
+        for (Elevator e : elevators) {
+            e.writeState(out);
+        }
+        dispatcher.writeState(out);
+        metrics.writeState(out);
+        callRates.writeState(out);
+    }
+
+    // обратно к writeState; движок должен быть новым, на том же здании
+    void readState(DataInput in) throws IOException {
+        now = in.readLong();
+        seq = in.readLong();
+        tick = in.readInt();
+        started = in.readBoolean();
+        eventCount = in.readLong();
+        callCount = in.readLong();
+        peopleCount = in.readLong();
+        simulationSteps = in.readInt();
+        requestProbability = in.readDouble();
+        upShare = in.readDouble();
+        interShare = in.readDouble();
+        rand.setState(in.readLong());
+
+        EventType[] types = EventType.values();
+        queue.clear();
+        int events = in.readInt();
+        for (int i = 0; i < events; i++) {
+            long time = in.readLong();
+            long s = in.readLong();
+            EventType type = types[in.readByte()];
+            queue.add(new Event(time, s, type, in.readInt(), in.readInt(), in.readInt()));
+            dispatchScheduled |= type == EventType.DISPATCH;
+        }
+        for (int i = 0; i < scheduled.length; i++) {
+            scheduled[i] = in.readBoolean();
+        }
+
+        hallCalls.readState(in);
+        for (Elevator e : elevators) {
+            e.readState(in);
+        }
+        dispatcher.readState(in);
+        metrics.readState(in);
+        callRates.readState(in);
+    }
+
+    // новое зерно генератора вызовов (ответвления от одной контрольной точки)
+    void reseed(long seed) {
+        rand.setSeed(seed);
+    }
+
+    /*
+     отпечаток состояния: время, счётчики прогона, положение, загрузка и счётчики
+     лифтов, ждущие на этажах и метрики пассажиров; прогоны с одним зерном
+     и настройками (в любом режиме, кроме потоков на лифт) дают один отпечаток
+     */
+    public long fingerprint() {
+        long h = mix(0, now);
+        h = mix(h, eventCount);
+        h = mix(h, callCount);
+        h = mix(h, peopleCount);
+        for (Elevator e : elevators) {
+            synchronized (e) {
+                h = mix(h, e.currFloor);
+                h = mix(h, e.currLoad);
+                h = mix(h, e.state.ordinal());
+                h = mix(h, e.reserved);
+                h = mix(h, e.getDoorOpenings());
+            }
+            ElevatorStats st = e.getStats();
+            h = mix(h, st.getFloorsTravelled());
+            h = mix(h, st.getStops());
+            h = mix(h, st.getPickups());
+        }
+        for (int f = 1; f <= hallCalls.floorCount(); f++) {
+            h = mix(h, hallCalls.waiting(f));
+        }
+        for (LatencyHistogram lh : new LatencyHistogram[] { metrics.getWait(), metrics.getRide(), metrics.getJourney() }) {
+            h = mix(h, lh.getCount());
+            h = mix(h, lh.getMax());
+            h = mix(h, Double.doubleToLongBits(lh.getMean()));
+        }
+        return h;
+    }
+
+    // перемешивание как в SplitMix64
+    private static long mix(long h, long v) {
+        long z = h * 31 + v + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // будим простаивающие лифты, которым назначили заявку
+    private void wakeElevators() {
+        for (int i = 0; i < elevators.length; i++) {
+            if (!scheduled[i] && !elevators[i].isIdle()) {
+                scheduleStep(i, now + STEP_TIME);
+            }
+        }
+    }
+
+    /*
+    назначение заявок: диспетчер смотрит только новые и освободившиеся этажи
+    */
+    void dispatchRequests() {
+        dispatcher.dispatchPending();
+    }
+
+    /*
+     запуск без GUI: java SimulationEngine [шагов] [seed] [nearest|eta|destination] [DEBUG|INFO|WARN|OFF] [каталог журнала]
+     с каталогом все события дополнительно пишутся в двоичный журнал (см. EventJournal, JournalReplay)
+     метрики на ходу: JMX или -Delevator.metrics.port=9100 (см. MetricsExporter)
+     стоянка лифтов без заявок: -Delevator.parking=demand (см. ParkingPolicy)
+     лифты волнами в N потоках: -Delevator.threads=N (режим PHASED, см. PhasedStepper);
+     отпечаток в конце совпадает у прогонов с одним зерном при любом N
+     совместное назначение вызовов с бюджетом в мкс: -Delevator.batch=500
+     вызовы по профилю трафика: -Delevator.traffic=uppeak (или lunch, downpeak, day, flat:2)
+     */
+    public static void main(String[] args) throws IOException {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : ElevatorRequestSimulation.simulationSteps;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        SimEvent.Level level = args.length > 3 ? SimEvent.Level.valueOf(args[3]) : SimEvent.Level.INFO;
+
+        SimulationEngine engine = createDefault(seed);
+        engine.setSimulationSteps(steps);
+        if (args.length > 2) {
+            engine.getDispatcher().setStrategy(DispatchStrategy.byName(args[2]));
+        }
+        String parking = System.getProperty(PARKING_PROPERTY);
+        if (parking != null) {
+            engine.setParkingPolicy(ParkingPolicy.byName(parking, engine));
+        }
+        String traffic = System.getProperty(TRAFFIC_PROPERTY);
+        if (traffic != null) {
+            TrafficProfile profile = TrafficProfile.byName(traffic, engine.getBuilding(), seed);
+            profile.setDuration(steps * TICK_TIME);
+            engine.setCallSource(profile);
+        }
+        String batch = System.getProperty(BATCH_PROPERTY);
+        if (batch != null) {
+            engine.getDispatcher().setBatchBudget(Long.parseLong(batch) * 1000);
+        }
+        String threads = System.getProperty(THREADS_PROPERTY);
+        if (threads != null) {
+            engine.setMode(ExecutionMode.PHASED);
+            engine.setStepThreads(Integer.parseInt(threads));
+        }
+        EventSink log = level == SimEvent.Level.OFF
+                ? EventSink.NOOP
+                : new AsyncEventSink(System.out, level, engine::now, 1 << 16);
+        EventJournal journal = null;
+        if (args.length > 4) {
+            journal = new EventJournal(Paths.get(args[4]), engine::now);
+            log = EventSink.tee(log, journal);
+        }
+        engine.setEventSink(log);
+        MetricsExporter exporter = MetricsExporter.start(engine);
+
+        long start = System.nanoTime();
+        engine.run();
+        long wallMs = (System.nanoTime() - start) / 1_000_000L;
+        log.close();
+        exporter.close();
+
+        System.out.println("[ДВИЖОК] зерно=" + seed + ", режим=" + engine.mode
+                + (threads != null ? ", потоков=" + threads : "")
+                + String.format(", отпечаток=%016x", engine.fingerprint()));
+        System.out.println("[ДВИЖОК] шагов=" + steps + ", вызовов=" + engine.getCallCount()
+                + ", людей=" + engine.getPeopleCount() + ", событий=" + engine.getEventCount()
+                + ", виртуальное время=" + engine.now() + " мс, реальное=" + wallMs + " мс");
+        System.out.println(engine.getPassengerMetrics().report());
+        if (journal != null) {
+            System.out.println("[ДВИЖОК] записей в журнале: " + journal.getRecordCount()
+                    + (journal.getDroppedCount() > 0 ? ", отброшено: " + journal.getDroppedCount() : ""));
+        }
+    }
+}
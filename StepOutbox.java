@@ -0,0 +1,78 @@
+import java.util.Arrays;
+
+/**
+ отложенные действия одного шага лифта (режим PHASED): события журнала и сообщения
+ диспетчеру копятся здесь, пока лифты шагают параллельно, и выполняются потом
+ в одном потоке по порядку номеров лифтов - порядок не зависит от числа потоков
+ */
+final class StepOutbox implements EventSink {
+
+    // вместо типа события: лифт убрал этаж из маршрута / на этаже пересадка
+    private static final int SERVED = -1;
+    private static final int CALL_ARRIVED = -2;
+    private static final SimEvent[] TYPES = SimEvent.values();
+
+    private final EventSink log;
+    private int[] buf = new int[5 * 16]; // по 5 чисел на запись: тип, лифт, этаж, a, b
+    private int size = 0;
+
+    /**
+    @param log // куда уйдут события при commit
+     */
+    StepOutbox(EventSink log) {
+        this.log = log;
+    }
+
+    @Override
+    public boolean isEnabled(SimEvent.Level level) {
+        return log.isEnabled(level);
+    }
+
+    @Override
+    public void emit(SimEvent type, int elev, int floor, int a, int b) {
+        if (log != NOOP) {
+            add(type.ordinal(), elev, floor, a, b);
+        }
+    }
+
+    void served(int floor) {
+        add(SERVED, 0, floor, 0, 0);
+    }
+
+    void callArrived(int floor) {
+        add(CALL_ARRIVED, 0, floor, 0, 0);
+    }
+
+    private void add(int type, int elev, int floor, int a, int b) {
+        if (size + 5 > buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        buf[size++] = type;
+        buf[size++] = elev;
+        buf[size++] = floor;
+        buf[size++] = a;
+        buf[size++] = b;
+    }
+
+    /*
+     выполнить накопленное в порядке записи и очистить
+     @param dispatcher // диспетчер лифта elev (может не быть)
+     */
+    void commit(Dispatcher dispatcher, Elevator elev) {
+        for (int i = 0; i < size; i += 5) {
+            int type = buf[i];
+            if (type == SERVED) {
+                if (dispatcher != null) {
+                    dispatcher.floorServed(buf[i + 2], elev);
+                }
+            } else if (type == CALL_ARRIVED) {
+                if (dispatcher != null) {
+                    dispatcher.callArrived(buf[i + 2]);
+                }
+            } else {
+                log.emit(TYPES[type], buf[i + 1], buf[i + 2], buf[i + 3], buf[i + 4]);
+            }
+        }
+        size = 0;
+    }
+}
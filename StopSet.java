@@ -0,0 +1,35 @@
+/**
+ набор этажей-остановок лифта (этажи - неотрицательные int, без упаковки в Integer)
+ */
+public interface StopSet {
+
+    // добавить этаж
+    void add(int floor);
+
+    // убрать этаж
+    void remove(int floor);
+
+    boolean contains(int floor);
+
+    boolean isEmpty();
+
+    int size();
+
+    void clear();
+
+    // наименьший этаж >= from, или -1
+    int next(int from);
+
+    // наибольший этаж <= from, или -1
+    int prev(int from);
+
+    // наименьший этаж, или -1 если пусто
+    default int min() {
+        return next(0);
+    }
+
+    // наибольший этаж, или -1 если пусто
+    default int max() {
+        return prev(Integer.MAX_VALUE);
+    }
+}
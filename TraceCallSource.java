@@ -0,0 +1,172 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ вызовы из JSONL-файла, по одному объекту в строке:
+   {"t": 1200, "floor": 7, "people": 3, "destination": 1}
+ время - в мс (ключ t, time или timestamp), destination необязателен (или dest),
+ без него едут в лобби; с 1 этажа (лобби) - только с назначением
+ файл читается потоком через буфер, целиком в память не загружается
+ время отсчитывается от первой записи, записи должны идти по возрастанию времени
+ этаж вызова и назначение должны обслуживаться каким-нибудь лифтом (в здании с зонами
+ вызов с этажа, куда лифты не ходят, никто не заберёт, и повтор бы не кончился)
+ */
+public class TraceCallSource implements CallSource {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BufferedReader reader;
+    private final Path path;
+    private final int floorCount;
+    private final boolean[] served; // [этаж]: лобби и Building.getCallFloors
+
+    private long lineNo = 0;
+    private long firstTime = Long.MIN_VALUE;
+    private long lastTime = Long.MIN_VALUE;
+
+    /**
+    @param path // файл с вызовами
+    @param building // здание (для проверки записей: этажи и обслуживаемые этажи)
+     */
+    public TraceCallSource(Path path, Building building) throws IOException {
+        this.path = path;
+        this.floorCount = building.floorCount();
+        this.served = new boolean[floorCount + 1];
+        served[Building.LOBBY] = true;
+        for (int f : building.getCallFloors()) {
+            served[f] = true;
+        }
+        this.reader = new BufferedReader(
+                Channels.newReader(FileChannel.open(path, StandardOpenOption.READ), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+
+    @Override
+    public HallCall next() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (!line.isBlank()) {
+                    return parse(line);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(path + ":" + lineNo, e);
+        }
+    }
+
+    /*
+     разбор одной строки: плоский JSON-объект, нас интересуют только числа
+     */
+    HallCall parse(String line) {
+        long time = Long.MIN_VALUE;
+        int floor = -1;
+        int people = 1;
+        int destination = -1;
+
+        int i = 0;
+        int n = line.length();
+        while (i < n) {
+            int keyStart = line.indexOf('"', i);
+            if (keyStart < 0) {
+                break;
+            }
+            int keyEnd = line.indexOf('"', keyStart + 1);
+            int colon = keyEnd < 0 ? -1 : line.indexOf(':', keyEnd);
+            if (colon < 0) {
+                throw error("ожидался ключ");
+            }
+            String key = line.substring(keyStart + 1, keyEnd);
+
+            int v = colon + 1;
+            while (v < n && Character.isWhitespace(line.charAt(v))) {
+                v++;
+            }
+            if (v < n && line.charAt(v) == '"') {
+                // строковое значение - пропускаем
+                int close = line.indexOf('"', v + 1);
+                if (close < 0) {
+                    throw error("незакрытая строка");
+                }
+                i = close + 1;
+                continue;
+            }
+            int end = v;
+            while (end < n && line.charAt(end) != ',' && line.charAt(end) != '}') {
+                end++;
+            }
+            String value = line.substring(v, end).trim();
+            i = end + 1;
+
+            switch (key) {
+                case "t":
+                case "time":
+                case "timestamp":
+                    time = (long) Double.parseDouble(value);
+                    break;
+                case "floor":
+                    floor = Integer.parseInt(value);
+                    break;
+                case "people":
+                    people = Integer.parseInt(value);
+                    break;
+                case "destination":
+                case "dest":
+                    destination = "null".equals(value) ? -1 : Integer.parseInt(value);
+                    break;
+                default:
+                    // остальные поля не нужны
+                    break;
+            }
+        }
+
+        if (time == Long.MIN_VALUE) {
+            throw error("нет времени (t)");
+        }
+        if (floor < 1 || floor > floorCount) {
+            throw error("этаж вне здания: " + floor);
+        }
+        if (!served[floor]) {
+            throw error("на этаж " + floor + " не ходит ни один лифт");
+        }
+        if (destination > floorCount || destination == floor
+                || (destination <= 0 && floor == Building.LOBBY)) {
+            throw error("неверное назначение: " + destination);
+        }
+        if (destination > 0 && !served[destination]) {
+            throw error("на этаж назначения " + destination + " не ходит ни один лифт");
+        }
+        if (people <= 0) {
+            throw error("людей должно быть больше 0");
+        }
+        if (time < lastTime) {
+            throw error("время идёт назад: " + time + " < " + lastTime);
+        }
+        lastTime = time;
+        if (firstTime == Long.MIN_VALUE) {
+            firstTime = time;
+        }
+        return new HallCall(time - firstTime, floor, people, destination);
+    }
+
+    private IllegalArgumentException error(String msg) {
+        return new IllegalArgumentException(path + ":" + lineNo + ": " + msg);
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ прогон записанного трафика без GUI, чтобы сравнивать диспетчеры на одинаковом входе:
+   java TraceReplay trace.jsonl [nearest|eta|destination] [DEBUG|INFO|WARN|OFF]
+ */
+public class TraceReplay {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("использование: java TraceReplay trace.jsonl [стратегия] [уровень журнала]");
+            return;
+        }
+        Path path = Paths.get(args[0]);
+        String strategy = args.length > 1 ? args[1] : "nearest";
+        SimEvent.Level level = args.length > 2 ? SimEvent.Level.valueOf(args[2]) : SimEvent.Level.OFF;
+
+        SimulationEngine engine = SimulationEngine.createDefault(0);
+        engine.setSimulationSteps(Integer.MAX_VALUE);
+        engine.getDispatcher().setStrategy(DispatchStrategy.byName(strategy));
+        EventSink log = level == SimEvent.Level.OFF
+                ? EventSink.NOOP
+                : new AsyncEventSink(System.out, level, engine::now, 1 << 16);
+        engine.setEventSink(log);
+
+        long start = System.nanoTime();
+        try (TraceCallSource source = new TraceCallSource(path, engine.getBuilding())) {
+            engine.setCallSource(source);
+            MetricsExporter exporter = MetricsExporter.start(engine);
+            engine.run();
+            exporter.close();
+        }
+        long wallMs = (System.nanoTime() - start) / 1_000_000L;
+        log.close();
+
+        System.out.println("[ПОВТОР] " + path + ", стратегия=" + strategy
+                + ": вызовов=" + engine.getCallCount()
+                + ", людей=" + engine.getPeopleCount()
+                + ", перевезено=" + engine.getHallCalls().totalBoarded()
+                + ", событий=" + engine.getEventCount()
+                + ", виртуальное время=" + engine.now() + " мс, реальное=" + wallMs + " мс");
+        System.out.println(engine.getPassengerMetrics().report());
+    }
+}
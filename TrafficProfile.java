@@ -0,0 +1,487 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ генератор вызовов по профилю трафика (вместо одного вызова на такт с постоянной вероятностью)
+
+ вызовы приходят пуассоновским потоком с интенсивностью, меняющейся по времени суток:
+ кривая задаётся точками (время суток, вызовов в час, доля из лобби наверх, доля вниз в лобби),
+ между точками - линейно, кривая повторяется каждые сутки; остальные вызовы - между этажами
+ поверх кривой - всплески (конец совещания, автобус у входа): на время добавляется
+ свой поток с одного этажа
+ неоднородный поток строится прореживанием: кандидаты идут с наибольшей на отрезке
+ интенсивностью и принимаются с вероятностью lambda(t) / наибольшая; отрезки режутся
+ по точкам кривой и границам всплесков, поэтому ночью лишних кандидатов мало
+
+ этажи выбираются по весам методом псевдонимов (Вэлкер/Вос) - O(1) на вызов
+ у времени, этажей, состава потока и числа людей свои генераторы (SplittableRandom,
+ отщеплены от одного зерна): смена весов этажей не сдвигает моменты вызовов
+ */
+public class TrafficProfile implements CallSource {
+
+    public static final long HOUR = 3_600_000L;
+    public static final long DAY = 24 * HOUR;
+
+    // попыток найти этаж назначения из того же банка при вызове между этажами
+    private static final int INTER_TRIES = 8;
+
+    private final Building building;
+    private final int[] callFloors;
+
+    // кривая по времени суток (мс от полуночи), отсортирована
+    private long[] pointTime = new long[0];
+    private double[] pointRate = new double[0];  // вызовов в час
+    private double[] pointUp = new double[0];
+    private double[] pointDown = new double[0];
+
+    // всплески (время от начала прогона)
+    private final List<long[]> bursts = new ArrayList<>();       // {начало, конец, этаж}
+    private final List<Double> burstRates = new ArrayList<>();   // вызовов в час
+
+    // этажи по весам (метод псевдонимов)
+    private double[] aliasProb;
+    private int[] alias;
+
+    private long start = 0;               // время суток в начале прогона
+    private long duration = Long.MAX_VALUE;
+    private double scale = 1;
+
+    private final SplittableRandom arrivals;
+    private final SplittableRandom floors;
+    private final SplittableRandom mix;
+    private final SplittableRandom people;
+
+    private double clock = 0;              // время последнего кандидата, мс от начала прогона
+    private double segmentEnd = -1;        // конец текущего отрезка прореживания
+    private double segmentMax = 0;         // наибольшая интенсивность на нём, вызовов в мс
+    private long generated = 0;
+
+    /**
+    @param building // здание (этажи вызовов и банки лифтов)
+    @param seed // зерно: одинаковое зерно и профиль - одинаковые вызовы
+     */
+    public TrafficProfile(Building building, long seed) {
+        this.building = building;
+        this.callFloors = building.getCallFloors();
+        if (callFloors.length == 0) {
+            throw new IllegalArgumentException("в здании нет этажей для вызовов");
+        }
+        SplittableRandom root = new SplittableRandom(seed);
+        this.arrivals = root.split();
+        this.floors = root.split();
+        this.mix = root.split();
+        this.people = root.split();
+        double[] uniform = new double[building.floorCount() + 1];
+        for (int f : callFloors) {
+            uniform[f] = 1;
+        }
+        setFloorWeights(uniform);
+    }
+
+    /*
+     точка кривой: в момент суток time вызовов в час rate, из них доля up - из лобби
+     наверх, down - с этажей в лобби, остальное - между этажами
+     */
+    public void addPoint(long time, double rate, double up, double down) {
+        if (rate < 0 || up < 0 || down < 0 || up + down > 1) {
+            throw new IllegalArgumentException("неверная точка профиля: " + rate + " " + up + " " + down);
+        }
+        long t = Math.floorMod(time, DAY);
+        int i = 0;
+        while (i < pointTime.length && pointTime[i] < t) {
+            i++;
+        }
+        pointTime = insert(pointTime, i, t);
+        pointRate = insert(pointRate, i, rate);
+        pointUp = insert(pointUp, i, up);
+        pointDown = insert(pointDown, i, down);
+        segmentEnd = -1;
+    }
+
+    /*
+     всплеск: с момента at (от начала прогона) в течение duration добавочно rate вызовов в час
+     с этажа floor; из лобби - наверх по весам этажей, с другого этажа - в лобби
+     */
+    public void addBurst(long at, long duration, double rate, int floor) {
+        if ((floor != Building.LOBBY && Arrays.binarySearch(callFloors, floor) < 0) || duration <= 0 || rate < 0) {
+            throw new IllegalArgumentException("неверный всплеск: этаж " + floor);
+        }
+        bursts.add(new long[] { at, at + duration, floor });
+        burstRates.add(rate);
+        segmentEnd = -1;
+    }
+
+    /*
+     веса этажей вызова (индекс - этаж); этажи без лифтов и лобби не выбираются
+     */
+    public void setFloorWeights(double[] weights) {
+        int n = callFloors.length;
+        double[] w = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            int f = callFloors[i];
+            w[i] = f < weights.length ? weights[f] : 0;
+            if (w[i] < 0) {
+                throw new IllegalArgumentException("вес этажа " + f + " меньше 0");
+            }
+            sum += w[i];
+        }
+        if (sum <= 0) {
+            throw new IllegalArgumentException("все веса этажей нулевые");
+        }
+
+        // метод Вос: столбцы ниже среднего доливаются из столбцов выше среднего
+        double[] prob = new double[n];
+        int[] al = new int[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int ns = 0;
+        int nl = 0;
+        for (int i = 0; i < n; i++) {
+            w[i] = w[i] * n / sum;
+            if (w[i] < 1) {
+                small[ns++] = i;
+            } else {
+                large[nl++] = i;
+            }
+        }
+        while (ns > 0 && nl > 0) {
+            int s = small[--ns];
+            int l = large[--nl];
+            prob[s] = w[s];
+            al[s] = l;
+            w[l] = w[l] + w[s] - 1;
+            if (w[l] < 1) {
+                small[ns++] = l;
+            } else {
+                large[nl++] = l;
+            }
+        }
+        while (nl > 0) {
+            prob[large[--nl]] = 1;
+        }
+        while (ns > 0) {
+            prob[small[--ns]] = 1; // остатки округления
+        }
+        this.aliasProb = prob;
+        this.alias = al;
+    }
+
+    // время суток в момент 0 прогона
+    public void setStart(long timeOfDay) {
+        this.start = Math.floorMod(timeOfDay, DAY);
+        segmentEnd = -1;
+    }
+
+    // после duration мс вызовов больше нет
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    // множитель интенсивности (кривой и всплесков)
+    public void setScale(double scale) {
+        this.scale = scale;
+        segmentEnd = -1;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    @Override
+    public HallCall next() {
+        if (pointTime.length == 0 && bursts.isEmpty()) {
+            return null;
+        }
+        while (clock < duration) {
+            if (clock >= segmentEnd) {
+                startSegment();
+            }
+            if (segmentMax <= 0) {
+                clock = segmentEnd;
+                continue;
+            }
+            double t = clock - Math.log(1 - arrivals.nextDouble()) / segmentMax;
+            if (t >= segmentEnd) {
+                // поток без памяти: на следующем отрезке начинаем заново с его начала
+                clock = segmentEnd;
+                continue;
+            }
+            clock = t;
+            if (clock >= duration) {
+                break;
+            }
+            double base = baseRate(clock);
+            double total = base + burstRate(clock);
+            double u = arrivals.nextDouble() * segmentMax;
+            if (u < total) {
+                generated++;
+                return u < base ? baseCall((long) clock) : burstCall((long) clock, u - base);
+            }
+        }
+        return null;
+    }
+
+    // отрезок от clock до ближайшей точки кривой или границы всплеска
+    private void startSegment() {
+        double end = Math.min(duration, clock + DAY);
+        if (pointTime.length > 0) {
+            double tod = (start + clock) % DAY;
+            long next = pointTime[0] + DAY;
+            for (long p : pointTime) {
+                if (p > tod) {
+                    next = p;
+                    break;
+                }
+            }
+            end = Math.min(end, clock + (next - tod));
+        }
+        for (long[] b : bursts) {
+            if (b[0] > clock) {
+                end = Math.min(end, b[0]);
+            } else if (b[1] > clock) {
+                end = Math.min(end, b[1]);
+            }
+        }
+        if (end <= clock) {
+            end = Math.nextUp(clock);
+        }
+        segmentEnd = end;
+        // кривая на отрезке линейна - наибольшее значение на одном из концов
+        double mid = (clock + end) / 2;
+        segmentMax = Math.max(baseRate(clock), baseRate(Math.nextDown(end))) + burstRate(mid);
+    }
+
+    // интенсивность кривой в момент t прогона, вызовов в мс
+    private double baseRate(double t) {
+        int n = pointTime.length;
+        if (n == 0) {
+            return 0;
+        }
+        double tod = (start + t) % DAY;
+        int i = segmentOf(tod);
+        return interpolate(pointRate, i, tod) * scale / HOUR;
+    }
+
+    // интенсивность всплесков в момент t, вызовов в мс
+    private double burstRate(double t) {
+        double r = 0;
+        for (int i = 0; i < bursts.size(); i++) {
+            long[] b = bursts.get(i);
+            if (b[0] <= t && t < b[1]) {
+                r += burstRates.get(i);
+            }
+        }
+        return r * scale / HOUR;
+    }
+
+    // последняя точка кривой не позже tod (с переходом через полночь - последняя точка суток)
+    private int segmentOf(double tod) {
+        int i = pointTime.length - 1;
+        while (i >= 0 && pointTime[i] > tod) {
+            i--;
+        }
+        return i < 0 ? pointTime.length - 1 : i;
+    }
+
+    private double interpolate(double[] v, int i, double tod) {
+        int j = (i + 1) % pointTime.length;
+        if (j == i) {
+            return v[i];
+        }
+        double from = pointTime[i];
+        double to = pointTime[j];
+        if (to <= from) {
+            to += DAY;
+        }
+        if (tod < from) {
+            tod += DAY;
+        }
+        double k = (tod - from) / (to - from);
+        return v[i] + (v[j] - v[i]) * k;
+    }
+
+    // вызов по кривой: наверх из лобби, вниз в лобби или между этажами
+    private HallCall baseCall(long time) {
+        double tod = (start + time) % DAY;
+        int i = segmentOf(tod);
+        double up = interpolate(pointUp, i, tod);
+        double down = interpolate(pointDown, i, tod);
+        double r = mix.nextDouble();
+        if (r < up) {
+            return new HallCall(time, Building.LOBBY, people(), floor());
+        }
+        int origin = floor();
+        if (r >= up + down) {
+            for (int k = 0; k < INTER_TRIES; k++) {
+                int dest = floor();
+                if (dest != origin && building.sameBank(origin, dest)) {
+                    return new HallCall(time, origin, people(), dest);
+                }
+            }
+        }
+        return new HallCall(time, origin, people(), Building.LOBBY);
+    }
+
+    // вызов всплеска, u - точка внутри суммы интенсивностей всплесков (вызовов в мс)
+    private HallCall burstCall(long time, double u) {
+        int floor = Building.LOBBY;
+        for (int i = 0; i < bursts.size(); i++) {
+            long[] b = bursts.get(i);
+            if (b[0] <= time && time < b[1]) {
+                floor = (int) b[2];
+                u -= burstRates.get(i) * scale / HOUR;
+                if (u < 0) {
+                    break;
+                }
+            }
+        }
+        if (floor == Building.LOBBY) {
+            return new HallCall(time, Building.LOBBY, people(), floor());
+        }
+        return new HallCall(time, floor, people(), Building.LOBBY);
+    }
+
+    // этаж по весам
+    private int floor() {
+        int i = floors.nextInt(aliasProb.length);
+        return callFloors[floors.nextDouble() < aliasProb[i] ? i : alias[i]];
+    }
+
+    private int people() {
+        return people.nextInt(ElevatorRequestSimulation.peoplePerRequestMin,
+                ElevatorRequestSimulation.peoplePerRequestMax + 1);
+    }
+
+    private static long[] insert(long[] a, int i, long v) {
+        long[] r = new long[a.length + 1];
+        System.arraycopy(a, 0, r, 0, i);
+        r[i] = v;
+        System.arraycopy(a, i, r, i + 1, a.length - i);
+        return r;
+    }
+
+    private static double[] insert(double[] a, int i, double v) {
+        double[] r = new double[a.length + 1];
+        System.arraycopy(a, 0, r, 0, i);
+        r[i] = v;
+        System.arraycopy(a, i, r, i + 1, a.length - i);
+        return r;
+    }
+
+    private static long hm(int hours, int minutes) {
+        return hours * HOUR + minutes * 60_000L;
+    }
+
+    /*
+     профиль по имени, через двоеточие - множитель интенсивности:
+       uppeak    утренний подъём (с 7:30), почти все едут из лобби наверх
+       lunch     обед (с 11:30), наверх и вниз поровну
+       downpeak  вечерний спуск (с 16:30), почти все едут в лобби
+       day       сутки офисного здания с 6:00, все три пика
+       flat      постоянный поток, как у генератора движка по умолчанию
+     интенсивности - для здания в 10 этажей с тремя лифтами; для нагрузочных
+     прогонов - множитель, например uppeak:500
+     */
+    public static TrafficProfile byName(String spec, Building building, long seed) {
+        String[] parts = spec.split(":");
+        TrafficProfile p = new TrafficProfile(building, seed);
+        if (parts.length > 2) {
+            throw new IllegalArgumentException("неизвестный профиль: " + spec);
+        }
+        if (parts.length == 2) {
+            p.setScale(Double.parseDouble(parts[1]));
+        }
+        switch (parts[0]) {
+            case "uppeak":
+                p.setStart(hm(7, 30));
+                upPeak(p);
+                break;
+            case "lunch":
+                p.setStart(hm(11, 30));
+                lunch(p);
+                break;
+            case "downpeak":
+                p.setStart(hm(16, 30));
+                downPeak(p);
+                break;
+            case "day":
+                p.setStart(hm(6, 0));
+                p.addPoint(hm(0, 0), 30, 0.1, 0.6);
+                p.addPoint(hm(6, 30), 200, 0.7, 0.1);
+                upPeak(p);
+                p.addPoint(hm(10, 30), 900, 0.2, 0.2);
+                lunch(p);
+                p.addPoint(hm(14, 30), 900, 0.2, 0.25);
+                downPeak(p);
+                p.addPoint(hm(20, 0), 150, 0.1, 0.7);
+                break;
+            case "flat":
+                // как generate() с вероятностью 0.3: 0.3 вызова на такт
+                p.addPoint(0, 0.3 * HOUR / SimulationEngine.TICK_TIME, 0, 0);
+                break;
+            default:
+                throw new IllegalArgumentException("неизвестный профиль: " + spec);
+        }
+        return p;
+    }
+
+    private static void upPeak(TrafficProfile p) {
+        p.addPoint(hm(7, 30), 600, 0.8, 0.05);
+        p.addPoint(hm(8, 30), 2400, 0.85, 0.05);
+        p.addPoint(hm(9, 0), 2000, 0.8, 0.05);
+        p.addPoint(hm(9, 30), 600, 0.5, 0.15);
+    }
+
+    private static void lunch(TrafficProfile p) {
+        p.addPoint(hm(11, 30), 900, 0.2, 0.4);
+        p.addPoint(hm(12, 15), 1800, 0.4, 0.45);
+        p.addPoint(hm(13, 0), 1800, 0.5, 0.35);
+        p.addPoint(hm(13, 45), 900, 0.25, 0.25);
+    }
+
+    private static void downPeak(TrafficProfile p) {
+        p.addPoint(hm(16, 30), 900, 0.05, 0.6);
+        p.addPoint(hm(17, 15), 2400, 0.03, 0.85);
+        p.addPoint(hm(18, 0), 1800, 0.03, 0.85);
+        p.addPoint(hm(18, 45), 500, 0.05, 0.7);
+    }
+
+    /*
+     нагрузочный прогон диспетчера и реестра вызовов:
+       java TrafficProfile [профиль] [часов] [зерно] [этажей] [лифтов]
+     например: java TrafficProfile uppeak:1000 1 7 100 1024 - полтора миллиона вызовов за час
+     */
+    public static void main(String[] args) {
+        String spec = args.length > 0 ? args[0] : "uppeak:100";
+        double hours = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        int floorCount = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        int cars = args.length > 4 ? Integer.parseInt(args[4]) : 256;
+
+        int[] caps = new int[cars];
+        Arrays.fill(caps, 20);
+        SimulationEngine engine = SimulationEngine.create(floorCount, caps, seed);
+        TrafficProfile profile = byName(spec, engine.getBuilding(), seed);
+        long duration = (long) (hours * HOUR);
+        profile.setDuration(duration);
+        engine.setCallSource(profile);
+        engine.setSimulationSteps((int) (duration / SimulationEngine.TICK_TIME));
+
+        long t0 = System.nanoTime();
+        engine.run();
+        long wallNs = System.nanoTime() - t0;
+
+        DispatcherStats st = engine.getDispatcher().getStats();
+        System.out.printf("[НАГРУЗКА] профиль=%s, часов=%.2f, этажей=%d, лифтов=%d%n", spec, hours, floorCount, cars);
+        System.out.printf("[НАГРУЗКА] вызовов=%d (%.0f в час), людей=%d, событий=%d, реальное=%d мс%n",
+                engine.getCallCount(), engine.getCallCount() / hours,
+                engine.getPeopleCount(), engine.getEventCount(), wallNs / 1_000_000L);
+        System.out.printf("[НАГРУЗКА] %.0f вызовов/с, %.0f событий/с, назначений=%d, оценок стоимости=%d, выбор лифта p99=%d мкс%n",
+                engine.getCallCount() * 1e9 / wallNs, engine.getEventCount() * 1e9 / wallNs,
+                st.getAssigned(), st.getCostEvaluations(), st.getDispatchLatencyP99Micros());
+        System.out.println(engine.getPassengerMetrics().report());
+    }
+}
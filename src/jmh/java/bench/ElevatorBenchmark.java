@@ -0,0 +1,115 @@
+package bench;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ JMH-замеры горячих путей: addCostReq, estRouteCost, step, dispatchRequests
+ операция - проход по всем лифтам банка (для step - один шаг каждого лифта),
+ для dispatchRequests - одно распределение ожидающих вызовов
+
+ сборка и запуск (байты на операцию - профилировщик gc):
+   mvn -B -Pjmh package
+   java -jar target/benchmarks.jar -prof gc
+   java -jar target/benchmarks.jar step -p floors=100 -p cars=16,256 -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElevatorBenchmark {
+
+    // шагов всех лифтов между раскладками здания (раскладка заново - вне замера)
+    static final int STEP_ROUNDS = 64;
+
+    /*
+     здание с параметрами замера; нагрузка (ElevatorWorkload) в пакете по умолчанию,
+     поэтому берётся через Class.forName, а операции - как IntSupplier
+     */
+    @State(Scope.Thread)
+    public static class Bank {
+
+        @Param({ "10", "100", "500" })
+        public int floors;
+
+        @Param({ "3", "16", "256" })
+        public int cars;
+
+        @Param({ "0.1", "0.5" })
+        public double density;
+
+        IntSupplier addCostReq;
+        IntSupplier estRouteCost;
+        IntSupplier step;
+        IntSupplier dispatchRequests;
+        Runnable reset;
+
+        @Setup(Level.Trial)
+        public void create() throws ReflectiveOperationException {
+            Class<?> type = Class.forName("ElevatorWorkload");
+            Object workload = type.getConstructor(int.class, int.class, double.class)
+                    .newInstance(floors, cars, density);
+            Method operation = type.getMethod("operation", String.class);
+            addCostReq = (IntSupplier) operation.invoke(workload, "addCostReq");
+            estRouteCost = (IntSupplier) operation.invoke(workload, "estRouteCost");
+            step = (IntSupplier) operation.invoke(workload, "step");
+            dispatchRequests = (IntSupplier) operation.invoke(workload, "dispatchRequests");
+            reset = (Runnable) type.getMethod("resetter").invoke(workload);
+        }
+    }
+
+    /*
+     то же здание, разложенное заново перед каждым вызовом (step и dispatchRequests его меняют);
+     время раскладки в замер не входит, а байты -prof gc входят (новые пассажиры на этажах),
+     поэтому для этих замеров gc.alloc.rate.norm - верхняя оценка
+     */
+    @State(Scope.Thread)
+    public static class FreshBank extends Bank {
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            reset.run();
+        }
+    }
+
+    @Benchmark
+    public int addCostReq(Bank bank) {
+        return bank.addCostReq.getAsInt();
+    }
+
+    @Benchmark
+    public int estRouteCost(Bank bank) {
+        return bank.estRouteCost.getAsInt();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEP_ROUNDS)
+    public void step(FreshBank bank, Blackhole bh) {
+        IntSupplier step = bank.step;
+        for (int i = 0; i < STEP_ROUNDS; i++) {
+            bh.consume(step.getAsInt());
+        }
+    }
+
+    @Benchmark
+    public int dispatchRequests(FreshBank bank) {
+        return bank.dispatchRequests.getAsInt();
+    }
+}
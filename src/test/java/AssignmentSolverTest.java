@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ венгерский алгоритм против перебора на малых матрицах (в том числе прямоугольных
+ и с недопустимыми парами): столько же назначенных пар и та же сумма стоимостей
+ */
+class AssignmentSolverTest {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    // лучшее по перебору: {назначенных пар, сумма}, пар - как можно больше, сумма - меньше
+    private static long[] brute(long[][] cost) {
+        int rows = cost.length;
+        int cols = cost[0].length;
+        long[] best = {-1, 0};
+        search(cost, 0, new boolean[cols], 0, 0, rows, cols, best);
+        return best;
+    }
+
+    // строки по порядку: строка берёт свободный столбец или (если строк больше) остаётся без него
+    private static void search(long[][] cost, int row, boolean[] used, long pairs, long sum,
+                               int rows, int cols, long[] best) {
+        if (row == rows) {
+            if (pairs > best[0] || pairs == best[0] && sum < best[1]) {
+                best[0] = pairs;
+                best[1] = sum;
+            }
+            return;
+        }
+        for (int j = 0; j < cols; j++) {
+            if (!used[j] && cost[row][j] < AssignmentSolver.INF) {
+                used[j] = true;
+                search(cost, row + 1, used, pairs + 1, sum + cost[row][j], rows, cols, best);
+                used[j] = false;
+            }
+        }
+        search(cost, row + 1, used, pairs, sum, rows, cols, best);
+    }
+
+    private static long[][] randomMatrix(Random rnd, int rows, int cols, int infPercent) {
+        long[][] cost = new long[rows][cols];
+        for (long[] row : cost) {
+            for (int j = 0; j < cols; j++) {
+                row[j] = rnd.nextInt(100) < infPercent ? AssignmentSolver.INF : rnd.nextInt(1000);
+            }
+        }
+        return cost;
+    }
+
+    @Test
+    void matchesBruteForce() {
+        Random rnd = new Random(11);
+        for (int n = 0; n < 5000; n++) {
+            int rows = 1 + rnd.nextInt(6);
+            int cols = 1 + rnd.nextInt(6);
+            long[][] cost = randomMatrix(rnd, rows, cols, n % 3 == 0 ? 30 : 0);
+
+            int[] res = AssignmentSolver.solve(cost, NO_DEADLINE);
+            assertEquals(rows, res.length);
+            boolean[] taken = new boolean[cols];
+            long pairs = 0;
+            long sum = 0;
+            for (int i = 0; i < rows; i++) {
+                if (res[i] < 0) {
+                    continue;
+                }
+                assertTrue(!taken[res[i]], "столбец " + res[i] + " отдан дважды");
+                assertTrue(cost[i][res[i]] < AssignmentSolver.INF, "недопустимая пара в ответе");
+                taken[res[i]] = true;
+                pairs++;
+                sum += cost[i][res[i]];
+            }
+            long[] best = brute(cost);
+            String at = "матрица " + n + ": " + Arrays.deepToString(cost) + " -> " + Arrays.toString(res);
+            assertEquals(best[0], pairs, at);
+            assertEquals(best[1], sum, at);
+        }
+    }
+
+    @Test
+    void emptyMatrix() {
+        assertEquals(0, AssignmentSolver.solve(new long[0][0], NO_DEADLINE).length);
+        assertEquals(-1, AssignmentSolver.solve(new long[2][0], NO_DEADLINE)[1]);
+    }
+
+    @Test
+    void expiredDeadlineGivesNoSolution() {
+        long[][] cost = randomMatrix(new Random(3), 5, 5, 0);
+        assertNull(AssignmentSolver.solve(cost, System.nanoTime() - 1));
+    }
+}
@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ асинхронный журнал: 4 потока пишут одновременно, после close в выводе каждое
+ принятое событие ровно один раз, а принятые плюс отброшенные - все отправленные
+ */
+class AsyncEventSinkTest {
+
+    private static final int EMITTERS = 4;
+    private static final int PER_EMITTER = 20_000;
+
+    private static int[] countLines(String text) {
+        int[] perCar = new int[EMITTERS + 1];
+        for (String line : text.split("\n")) {
+            for (int id = 1; id <= EMITTERS; id++) {
+                if (line.contains("[Лифт " + id + "]")) {
+                    perCar[id]++;
+                }
+            }
+        }
+        return perCar;
+    }
+
+    private static void emitConcurrently(AsyncEventSink sink) throws InterruptedException {
+        Thread[] threads = new Thread[EMITTERS];
+        for (int t = 0; t < EMITTERS; t++) {
+            int id = t + 1;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < PER_EMITTER; i++) {
+                    sink.emit(SimEvent.ARRIVE, id, i % 50 + 1, i % 7, 0);
+                }
+            }, "emitter-" + id);
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    @Test
+    void concurrentEmittersLoseNothing() throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        // буфер вмещает все события - отбрасывать нечего
+        AsyncEventSink sink = new AsyncEventSink(out, SimEvent.Level.INFO, () -> 0, EMITTERS * PER_EMITTER);
+        emitConcurrently(sink);
+        sink.close();
+        sink.emit(SimEvent.ARRIVE, 1, 2, 0, 0);
+
+        assertEquals(1, sink.getDroppedCount());
+        int[] perCar = countLines(bytes.toString(StandardCharsets.UTF_8));
+        for (int id = 1; id <= EMITTERS; id++) {
+            assertEquals(PER_EMITTER, perCar[id], "лифт " + id);
+        }
+    }
+
+    @Test
+    void smallBufferCountsDropped() throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        AsyncEventSink sink = new AsyncEventSink(out, SimEvent.Level.INFO, () -> 0, 64);
+        emitConcurrently(sink);
+        sink.close();
+
+        int written = 0;
+        for (int n : countLines(bytes.toString(StandardCharsets.UTF_8))) {
+            written += n;
+        }
+        assertEquals(EMITTERS * PER_EMITTER, written + sink.getDroppedCount());
+    }
+}
@@ -0,0 +1,64 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ совместное назначение (Dispatcher.setBatchBudget) против назначения по одному:
+ при пачках одновременных вызовов выигрывает, одиночным вызовам ожидания не добавляет
+ бюджет в тестах большой, чтобы решение не откатывалось на медленной машине
+ */
+class BatchDispatchTest {
+
+    private static final long BUDGET = 50_000_000L; // нс
+    private static final int STEPS = 2000;
+
+    // каждые every мс на burst случайных этажах разом вызывают лифт
+    private static LatencyHistogram burstWait(int floors, int cars, int burst, long every, long seed, long budget) {
+        int[] caps = new int[cars];
+        Arrays.fill(caps, 10);
+        SimulationEngine engine = SimulationEngine.create(floors, caps, seed);
+        engine.setRequestProbability(0);
+        engine.setSimulationSteps(STEPS);
+        engine.getDispatcher().setBatchBudget(budget);
+        Random rnd = new Random(seed);
+        for (long t = 1000; t < STEPS * SimulationEngine.TICK_TIME - 60_000; t += every) {
+            for (int k = 0; k < burst; k++) {
+                engine.scheduleCall(t, 2 + rnd.nextInt(floors - 1), 1 + rnd.nextInt(3));
+            }
+        }
+        engine.run();
+        return engine.getPassengerMetrics().getWait();
+    }
+
+    @Test
+    void batchingWinsOnBursts() {
+        LatencyHistogram single = new LatencyHistogram();
+        LatencyHistogram batched = new LatencyHistogram();
+        for (long seed = 1; seed <= 5; seed++) {
+            single.add(burstWait(20, 8, 8, 20_000, seed, 0));
+            batched.add(burstWait(20, 8, 8, 20_000, seed, BUDGET));
+        }
+        assertEquals(single.getCount(), batched.getCount());
+        assertTrue(batched.getMean() < single.getMean() * 0.95,
+                "среднее ожидание: вместе " + batched.getMean() + ", по одному " + single.getMean());
+        assertTrue(batched.percentile(95) < single.percentile(95),
+                "p95 ожидания: вместе " + batched.percentile(95) + ", по одному " + single.percentile(95));
+    }
+
+    @Test
+    void batchingAddsNoLatencyToSingleCalls() {
+        SimulationEngine single = SimulationEngine.createDefault(42);
+        single.setSimulationSteps(5000);
+        single.run();
+        SimulationEngine batched = SimulationEngine.createDefault(42);
+        batched.setSimulationSteps(5000);
+        batched.getDispatcher().setBatchBudget(BUDGET);
+        batched.run();
+        assertEquals(single.getPassengerMetrics().getWait().percentile(50),
+                batched.getPassengerMetrics().getWait().percentile(50));
+    }
+}
@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ BitStopSet против TreeSet: после случайных add/remove совпадают contains, size,
+ next/prev (в том числе на границах слов и за пределами маски), min и max
+ */
+class BitStopSetTest {
+
+    private static int orMinus(Integer f) {
+        return f == null ? -1 : f;
+    }
+
+    private static void check(BitStopSet set, TreeSet<Integer> ref, int range) {
+        assertEquals(ref.size(), set.size());
+        assertEquals(ref.isEmpty(), set.isEmpty());
+        assertEquals(ref.isEmpty() ? -1 : ref.first(), set.min());
+        assertEquals(ref.isEmpty() ? -1 : ref.last(), set.max());
+        for (int f = 0; f <= range + 70; f++) {
+            assertEquals(ref.contains(f), set.contains(f), "contains " + f);
+            assertEquals(orMinus(ref.ceiling(f)), set.next(f), "next " + f + " в " + ref);
+            assertEquals(orMinus(ref.floor(f)), set.prev(f), "prev " + f + " в " + ref);
+        }
+        assertEquals(ref.isEmpty() ? -1 : ref.last(), set.prev(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void matchesTreeSet() {
+        Random rnd = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int range = 1 + rnd.nextInt(rnd.nextBoolean() ? 64 : 400);
+            // маска меньше диапазона: add должен её расширять
+            BitStopSet set = new BitStopSet(rnd.nextBoolean() ? range : 1);
+            TreeSet<Integer> ref = new TreeSet<>();
+            for (int op = 0; op < 60; op++) {
+                int f = rnd.nextInt(range + 1);
+                if (rnd.nextInt(3) == 0) {
+                    set.remove(f);
+                    ref.remove(f);
+                } else {
+                    set.add(f);
+                    ref.add(f);
+                }
+                if (op % 10 == 9) {
+                    check(set, ref, range);
+                }
+            }
+            // удаление за пределами маски ничего не ломает
+            set.remove(range + 1000);
+            check(set, ref, range);
+            set.clear();
+            ref.clear();
+            check(set, ref, range);
+        }
+    }
+
+    @Test
+    void wordBoundaries() {
+        BitStopSet set = new BitStopSet(200);
+        TreeSet<Integer> ref = new TreeSet<>();
+        for (int f : new int[] {0, 63, 64, 127, 128, 191, 192}) {
+            set.add(f);
+            ref.add(f);
+        }
+        check(set, ref, 200);
+        set.remove(63);
+        ref.remove(63);
+        set.remove(64);
+        ref.remove(64);
+        check(set, ref, 200);
+    }
+}
@@ -0,0 +1,54 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ разбор этажей банка: этажи и диапазоны вне здания отвергаются с именем банка
+ ещё при разборе, до заполнения набора
+ */
+class BuildingConfigTest {
+
+    private static IllegalArgumentException rejected(String text) {
+        return assertThrows(IllegalArgumentException.class, () -> BuildingConfig.parse(text));
+    }
+
+    @Test
+    void zonesParsed() {
+        BuildingConfig c = BuildingConfig.parse("floors=60;bank.low.floors=1-30;bank.high.floors=1,30-60");
+        assertEquals(2, c.banks.size());
+        BuildingConfig.Bank high = c.banks.get(1);
+        assertEquals(1, high.floors.min());
+        assertEquals(30, high.floors.next(2));
+        assertEquals(60, high.floors.max());
+        assertEquals(32, high.floors.size());
+    }
+
+    @Test
+    void floorsMayFollowBanks() {
+        BuildingConfig c = BuildingConfig.parse("bank.x.floors=1-250;floors=250");
+        assertEquals(250, c.banks.get(0).floors.max());
+    }
+
+    @Test
+    void negativeFloorRejected() {
+        IllegalArgumentException e = rejected("floors=20;bank.x.floors=1,-3");
+        assertTrue(e.getMessage().contains("банк x"), e.getMessage());
+    }
+
+    @Test
+    void hugeRangeRejectedBeforeFilling() {
+        IllegalArgumentException e = rejected("floors=20;bank.x.floors=1-2000000000");
+        assertTrue(e.getMessage().contains("банк x"), e.getMessage());
+    }
+
+    @Test
+    void badRangesRejected() {
+        rejected("floors=20;bank.x.floors=0-5");
+        rejected("floors=20;bank.x.floors=1,21");
+        rejected("floors=20;bank.x.floors=1,10-5");
+        rejected("floors=20;bank.x.floors=1,a-5");
+        rejected("floors=20;bank.x.cars=2");
+    }
+}
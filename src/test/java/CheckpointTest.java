@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ контрольная точка: запуск, сохранённый посреди пути в файл и восстановленный,
+ доходит до того же отпечатка, что и непрерывный запуск с тем же зерном
+ */
+class CheckpointTest {
+
+    private static final int STEPS = 10_000;
+    private static final long PAUSE = 1_234_567; // мс, не на границе такта
+
+    @TempDir
+    Path dir;
+
+    // floors == 0 - здание по умолчанию
+    private static SimulationEngine make(int floors, int cars, String strategy, double p) {
+        SimulationEngine engine;
+        if (floors == 0) {
+            engine = SimulationEngine.createDefault(42);
+        } else {
+            int[] caps = new int[cars];
+            Arrays.fill(caps, 8);
+            engine = SimulationEngine.create(floors, caps, 42);
+        }
+        engine.setSimulationSteps(STEPS);
+        engine.setRequestProbability(p);
+        engine.setTraffic(0.4, 0.3);
+        engine.getDispatcher().setStrategy(DispatchStrategy.byName(strategy));
+        return engine;
+    }
+
+    private void roundTrip(int floors, int cars, String strategy, double p) throws IOException {
+        SimulationEngine whole = make(floors, cars, strategy, p);
+        whole.run();
+
+        SimulationEngine first = make(floors, cars, strategy, p);
+        first.runUntil(PAUSE);
+        Path file = dir.resolve(strategy + "-" + floors + ".eckp");
+        Checkpoint.capture(first).write(file);
+        SimulationEngine restored = Checkpoint.read(file).restore();
+        // стратегия в контрольную точку не входит
+        restored.getDispatcher().setStrategy(DispatchStrategy.byName(strategy));
+        restored.run();
+
+        String at = strategy + " " + floors + "/" + cars;
+        assertEquals(whole.fingerprint(), restored.fingerprint(), at);
+        // исходный движок после снимка тоже доходит до того же
+        first.run();
+        assertEquals(whole.fingerprint(), first.fingerprint(), at);
+    }
+
+    @Test
+    void defaultBuilding() throws IOException {
+        roundTrip(0, 0, "nearest", 0.9);
+    }
+
+    @Test
+    void destinationDispatch() throws IOException {
+        roundTrip(0, 0, "destination", 0.9);
+    }
+
+    @Test
+    void manyCars() throws IOException {
+        roundTrip(40, 40, "destination", 1.0);
+        roundTrip(20, 4, "eta", 0.8);
+    }
+
+    // генератор движка повторяет java.util.Random и продолжается с сохранённого состояния
+    @Test
+    void lcgRandomMatchesRandom() {
+        Random ref = new Random(42);
+        LcgRandom rnd = new LcgRandom(42);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ref.nextInt(), rnd.nextInt());
+            assertEquals(ref.nextDouble(), rnd.nextDouble());
+            assertEquals(ref.nextInt(17), rnd.nextInt(17));
+        }
+        LcgRandom copy = new LcgRandom(0);
+        copy.setState(rnd.getState());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(ref.nextLong(), copy.nextLong());
+        }
+    }
+}
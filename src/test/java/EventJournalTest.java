@@ -0,0 +1,132 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ двоичный журнал: 4 потока пишут одновременно, читатель видит все записи по порядку
+ времени, seek совпадает с линейным проходом; заголовок сегмента обновляется
+ после каждой пачки, поэтому записи видны и без close (как после падения процесса)
+ */
+class EventJournalTest {
+
+    private static final int EMITTERS = 4;
+    private static final int PER_EMITTER = 10_000;
+    private static final int SEGMENT = 1000;
+
+    @TempDir
+    Path dir;
+
+    // EMITTERS потоков по PER_EMITTER событий, время двигает первый поток
+    private static void emitConcurrently(EventJournal journal, AtomicLong clock) throws InterruptedException {
+        Thread[] threads = new Thread[EMITTERS];
+        for (int t = 0; t < EMITTERS; t++) {
+            int id = t + 1;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < PER_EMITTER; i++) {
+                    journal.emit(SimEvent.MOVE, id, i % 50 + 1, i % 7, 0);
+                    if (id == 1) {
+                        clock.incrementAndGet();
+                    }
+                }
+            }, "emitter-" + id);
+            threads[t].start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+    }
+
+    private void checkConcurrentEmitters(boolean compress) throws IOException, InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        EventJournal journal = new EventJournal(dir, clock::get, SEGMENT, compress);
+        emitConcurrently(journal, clock);
+        // этаж не влезает в запись - отбрасывается
+        journal.emit(SimEvent.MOVE, 1, 70_000, 1, 0);
+        journal.close();
+        // после close события не принимаются
+        journal.emit(SimEvent.MOVE, 1, 2, 1, 0);
+
+        long n = EMITTERS * PER_EMITTER;
+        assertEquals(n, journal.getRecordCount());
+        assertEquals(2, journal.getDroppedCount());
+
+        long[] perCar = new long[EMITTERS + 1];
+        long read = 0;
+        long prev = Long.MIN_VALUE;
+        try (JournalReader r = new JournalReader(dir)) {
+            assertEquals(n / SEGMENT, r.segmentCount());
+            while (r.next()) {
+                assertTrue(r.time() >= prev, "время убывает на записи " + read);
+                assertEquals(SimEvent.MOVE, r.type());
+                prev = r.time();
+                perCar[r.elev()]++;
+                read++;
+            }
+        }
+        assertEquals(n, read);
+        for (int id = 1; id <= EMITTERS; id++) {
+            assertEquals(PER_EMITTER, perCar[id], "лифт " + id);
+        }
+
+        for (long t : new long[] {-1, 0, 1, 777, PER_EMITTER / 2, PER_EMITTER - 1, PER_EMITTER, 2L * PER_EMITTER}) {
+            long before = 0;
+            try (JournalReader r = new JournalReader(dir)) {
+                while (r.next() && r.time() < t) {
+                    before++;
+                }
+            }
+            long after = 0;
+            try (JournalReader r = new JournalReader(dir)) {
+                r.seek(t);
+                while (r.next()) {
+                    assertTrue(r.time() >= t, "seek " + t + " оставил запись " + r.time());
+                    after++;
+                }
+            }
+            assertEquals(n, before + after, "seek " + t);
+        }
+    }
+
+    @Test
+    void concurrentEmitters() throws IOException, InterruptedException {
+        checkConcurrentEmitters(false);
+    }
+
+    @Test
+    void concurrentEmittersCompressed() throws IOException, InterruptedException {
+        checkConcurrentEmitters(true);
+    }
+
+    @Test
+    void headerCoversWrittenRecordsBeforeClose() throws IOException, InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        // сегмент больше записей: все записи в одном незаконченном сегменте
+        EventJournal journal = new EventJournal(dir, clock::get, 1 << 16, false);
+        try {
+            emitConcurrently(journal, clock);
+            long n = EMITTERS * PER_EMITTER;
+            // записи переносятся в файл в фоне: ждём, пока заголовок покроет все
+            long read = 0;
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (read < n && System.nanoTime() < deadline) {
+                read = 0;
+                try (JournalReader r = new JournalReader(dir)) {
+                    while (r.next()) {
+                        read++;
+                    }
+                }
+                Thread.sleep(5);
+            }
+            assertEquals(n, read);
+            assertEquals(n, journal.getRecordCount());
+        } finally {
+            journal.close();
+        }
+    }
+}
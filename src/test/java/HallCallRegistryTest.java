@@ -0,0 +1,125 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ claimFor под конкуренцией: генераторы ставят пассажиров в очереди, лифты в других
+ потоках их забирают; каждого пассажира забирает ровно один лифт, закреплённого -
+ только свой, счётчики этажей в конце нулевые
+ */
+class HallCallRegistryTest {
+
+    private static final int FLOORS = 4;
+    private static final int CARS = 4;
+    private static final int PRODUCERS = 2;
+    private static final int PER_PRODUCER = 20_000;
+
+    @Test
+    void claimForUnderConcurrency() throws InterruptedException {
+        HallCallRegistry calls = new HallCallRegistry(FLOORS);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<List<Passenger>> taken = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int c = 1; c <= CARS; c++) {
+            int carId = c;
+            List<Passenger> into = new ArrayList<>();
+            taken.add(into);
+            threads.add(new Thread(() -> {
+                await(start);
+                Random rnd = new Random(carId);
+                // после остановки генераторов - пока проход по всем очередям что-то забирает
+                while (true) {
+                    boolean done = !producing.get();
+                    int n = 0;
+                    for (int f = 1; f <= FLOORS; f++) {
+                        for (HallCallRegistry.Direction dir : HallCallRegistry.Direction.values()) {
+                            n += calls.claimFor(f, dir, carId, 1 + rnd.nextInt(8), into, p -> true);
+                        }
+                    }
+                    if (done && n == 0) {
+                        break;
+                    }
+                }
+            }, "car-" + c));
+        }
+        for (int t = 0; t < PRODUCERS; t++) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                await(start);
+                Random rnd = new Random(100 + seed);
+                for (int i = 0; i < PER_PRODUCER; i++) {
+                    int floor = 1 + rnd.nextInt(FLOORS);
+                    int dest = 1 + rnd.nextInt(FLOORS);
+                    // часть пассажиров закреплена за лифтом
+                    int car = rnd.nextInt(3) == 0 ? 1 + rnd.nextInt(CARS) : 0;
+                    calls.arrive(floor, HallCallRegistry.direction(floor, dest), 1, i, dest, car);
+                }
+            }, "producer-" + t));
+        }
+
+        for (Thread t : threads) {
+            t.start();
+        }
+        start.countDown();
+        for (int t = CARS; t < threads.size(); t++) {
+            threads.get(t).join();
+        }
+        producing.set(false);
+        for (int t = 0; t < CARS; t++) {
+            threads.get(t).join();
+        }
+
+        Map<Passenger, Boolean> seen = new IdentityHashMap<>();
+        int total = 0;
+        for (int c = 1; c <= CARS; c++) {
+            for (Passenger p : taken.get(c - 1)) {
+                assertTrue(seen.put(p, Boolean.TRUE) == null, "пассажира забрали дважды: " + p);
+                assertEquals(c, p.car);
+                assertTrue(p.assigned == 0 || p.assigned == c, "чужой закреплённый пассажир: " + p);
+                total++;
+            }
+        }
+        assertEquals(PRODUCERS * PER_PRODUCER, total);
+        assertEquals(total, calls.totalArrived());
+        assertEquals(total, calls.totalBoarded());
+        assertEquals(0, calls.totalWaiting());
+        for (int f = 1; f <= FLOORS; f++) {
+            assertEquals(0, calls.waiting(f));
+            assertEquals(0, calls.unassigned(f));
+        }
+    }
+
+    @Test
+    void pinnedPassengersWaitForTheirCar() {
+        HallCallRegistry calls = new HallCallRegistry(3);
+        calls.arrive(2, HallCallRegistry.Direction.UP, 2, 0, 3, 1);
+        calls.arrive(2, HallCallRegistry.Direction.UP, 1, 0, 3);
+        List<Passenger> into = new ArrayList<>();
+        assertEquals(1, calls.claimFor(2, HallCallRegistry.Direction.UP, 2, 10, into, p -> true));
+        assertEquals(2, calls.waiting(2));
+        assertEquals(0, calls.unassigned(2));
+        assertTrue(calls.hasAssigned(2, 1));
+        assertEquals(2, calls.claimFor(2, HallCallRegistry.Direction.UP, 1, 10, into, p -> true));
+        assertEquals(3, into.size());
+        assertEquals(0, calls.totalWaiting());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
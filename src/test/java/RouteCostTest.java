@@ -0,0 +1,105 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ длина маршрута по краям наборов (Elevator.routeCost) против прежнего прохода
+ по TreeSet: на случайных состояниях лифта результаты должны совпадать
+ */
+class RouteCostTest {
+
+    private static final int STATES = 200_000;
+
+    // прежний estRouteCost: проход по отсортированным наборам, возврат на home
+    private static int walk(Elevator.ElevSt state, int pos, TreeSet<Integer> up, TreeSet<Integer> down, int home) {
+        int cost = 0;
+        if (state == Elevator.ElevSt.WAITING || state == Elevator.ElevSt.MOVING_UP) {
+            for (int f : up) {
+                cost += Math.abs(f - pos);
+                pos = f;
+            }
+            for (int f : down) {
+                cost += Math.abs(f - pos);
+                pos = f;
+            }
+        } else {
+            for (int f : down) {
+                cost += Math.abs(f - pos);
+                pos = f;
+            }
+            cost += Math.abs(pos - home);
+            pos = home;
+            for (int f : up) {
+                cost += Math.abs(f - pos);
+                pos = f;
+            }
+        }
+        cost += Math.abs(pos - home);
+        return cost;
+    }
+
+    // прежний addCostReq без множителей: addReqTemp на копиях наборов и проход
+    private static int walkWith(Elevator.ElevSt state, int pos, TreeSet<Integer> up, TreeSet<Integer> down,
+                                int home, int floor) {
+        TreeSet<Integer> u = new TreeSet<>(up);
+        TreeSet<Integer> d = new TreeSet<>(down);
+        if (state == Elevator.ElevSt.WAITING) {
+            if (floor > pos) {
+                state = Elevator.ElevSt.MOVING_UP;
+                u.add(floor);
+            } else if (floor < pos) {
+                state = Elevator.ElevSt.MOVING_DOWN;
+                d.add(floor);
+            }
+        } else if (state == Elevator.ElevSt.MOVING_UP) {
+            if (floor >= pos) {
+                u.add(floor);
+            } else {
+                d.add(floor);
+            }
+        } else if (floor <= pos) {
+            d.add(floor);
+        } else {
+            u.add(floor);
+        }
+        return walk(state, pos, u, d, home);
+    }
+
+    @Test
+    void matchesTreeSetWalk() {
+        Random rnd = new Random(2024);
+        Elevator.ElevSt[] states = Elevator.ElevSt.values();
+        for (int n = 0; n < STATES; n++) {
+            int floors = 2 + rnd.nextInt(rnd.nextBoolean() ? 20 : 300);
+            Elevator e = new Building(floors, new int[] {10}).getElevators()[0];
+            int pos = 1 + rnd.nextInt(floors);
+            e.placeAt(pos);
+            e.state = states[rnd.nextInt(states.length)];
+
+            TreeSet<Integer> up = new TreeSet<>();
+            TreeSet<Integer> down = new TreeSet<>(Comparator.reverseOrder());
+            int stops = rnd.nextInt(6);
+            for (int k = 0; k < stops; k++) {
+                int f = 1 + rnd.nextInt(floors);
+                if (rnd.nextBoolean()) {
+                    up.add(f);
+                    e.upReq.add(f);
+                } else {
+                    down.add(f);
+                    e.downReq.add(f);
+                }
+            }
+            int home = e.getHomeFloor();
+            String at = "состояние " + n + ": " + e.state + " на " + pos + ", вверх " + up + ", вниз " + down;
+            assertEquals(walk(e.state, pos, up, down, home), e.estRouteCost(), at);
+
+            int floor = 1 + rnd.nextInt(floors);
+            assertEquals(walkWith(e.state, pos, up, down, home, floor), e.routeCostWith(floor),
+                    at + ", этаж " + floor);
+        }
+    }
+}
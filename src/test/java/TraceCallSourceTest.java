@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ записи трассы в здании с зонами: вызов с этажа или на этаж, куда не ходит
+ ни один лифт, отвергается при разборе (иначе повтор никогда не кончится)
+ */
+class TraceCallSourceTest {
+
+    private static final Building ZONED = new Building(BuildingConfig.parse(
+            "floors=300;bank.low.floors=1-100;bank.low.cars=2;bank.sky.floors=1,150-300;bank.sky.cars=2"));
+
+    @TempDir
+    Path dir;
+
+    private TraceCallSource source(String... lines) throws IOException {
+        Path file = dir.resolve("trace.jsonl");
+        Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        return new TraceCallSource(file, ZONED);
+    }
+
+    @Test
+    void servedFloorsAccepted() throws IOException {
+        try (TraceCallSource s = source("{\"t\": 100, \"floor\": 5, \"people\": 2}",
+                "{\"t\": 300, \"floor\": 1, \"destination\": 160}")) {
+            HallCall first = s.next();
+            assertEquals(0, first.time);
+            assertEquals(5, first.floor);
+            assertEquals(200, s.next().time);
+            assertNull(s.next());
+        }
+    }
+
+    @Test
+    void unservedCallFloorRejected() throws IOException {
+        try (TraceCallSource s = source("{\"t\": 0, \"floor\": 120}")) {
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, s::next);
+            assertTrue(e.getMessage().contains(":1:"), e.getMessage());
+        }
+    }
+
+    @Test
+    void unservedDestinationRejected() throws IOException {
+        try (TraceCallSource s = source("{\"t\": 0, \"floor\": 1, \"dest\": 120}")) {
+            assertThrows(IllegalArgumentException.class, s::next);
+        }
+    }
+}